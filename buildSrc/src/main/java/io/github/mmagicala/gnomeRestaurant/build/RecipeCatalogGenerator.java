@@ -0,0 +1,695 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant.build;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Turns the recipe catalog into the MinigameStage and ItemOrderType enums and the RecipeTables class.
+ * Every problem found in the catalog is reported at once, line by line, before anything is written.
+ */
+public class RecipeCatalogGenerator
+{
+	private static final String PACKAGE = "io.github.mmagicala.gnomeRestaurant";
+
+	private static final Pattern CONSTANT_NAME = Pattern.compile("[A-Z][A-Z0-9_]*");
+
+	private static final String NO_ITEM = "-";
+
+	// Order kinds, in the order of RecipeCatalog's kind constants, with the number of items each lists
+
+	private static final List<String> ORDER_KINDS = Arrays.asList("baked", "baked-topped", "cocktail", "heated-cocktail");
+	private static final String[] ORDER_KIND_CONSTANTS = {"BAKED", "BAKED_TOPPED", "COCKTAIL", "HEATED_COCKTAIL"};
+	private static final int[] ORDER_KIND_ARITIES = {3, 4, 2, 5};
+
+	// Names share a bucket of the perfect hash four at a time on average
+
+	private static final int NAMES_PER_BUCKET = 4;
+	private static final int MAX_SEED = 1 << 20;
+
+	private final Map<String, Integer> itemIds;
+
+	// Parsed catalog
+
+	private final Map<String, String> stages = new LinkedHashMap<>();
+	private final Map<String, String[]> orderTypes = new LinkedHashMap<>();
+	private final Map<String, String> easyRecipients = new LinkedHashMap<>();
+	private final Map<String, String> hardRecipients = new LinkedHashMap<>();
+	private final List<Order> orders = new ArrayList<>();
+
+	// Perfect hash over order and printed recipient names, by slot, and the seed of each bucket
+
+	private String[] nameKeys;
+	private String[] nameCodes;
+	private int[] nameSeeds;
+
+	private final List<String> errors = new ArrayList<>();
+	private String fileName;
+	private int lineNumber;
+
+	private static class Order
+	{
+		String name;
+		int kind;
+		String[] arguments;
+		final List<String[]> ingredients = new ArrayList<>();
+	}
+
+	/**
+	 * @param itemIds the ItemID constants items may be named by
+	 */
+	public RecipeCatalogGenerator(Map<String, Integer> itemIds)
+	{
+		this.itemIds = itemIds;
+	}
+
+	/**
+	 * @return the public int constants of the given class, such as net.runelite.api.ItemID, by name
+	 */
+	public static Map<String, Integer> readConstants(Class<?> constantsClass) throws IllegalAccessException
+	{
+		Map<String, Integer> constants = new HashMap<>();
+
+		for (Field field : constantsClass.getFields())
+		{
+			if (Modifier.isStatic(field.getModifiers()) && field.getType() == int.class)
+			{
+				constants.put(field.getName(), field.getInt(null));
+			}
+		}
+		return constants;
+	}
+
+	/**
+	 * Parse and check the catalog, then write the generated sources under the given source root
+	 * @throws IllegalArgumentException listing every problem found if the catalog is invalid
+	 */
+	public void generate(File catalogFile, File sourceRoot) throws IOException
+	{
+		parse(catalogFile);
+
+		if (!errors.isEmpty())
+		{
+			throw new IllegalArgumentException("Invalid recipe catalog:\n" + String.join("\n", errors));
+		}
+
+		buildNameTable();
+
+		File packageDirectory = new File(sourceRoot, PACKAGE.replace('.', File.separatorChar));
+
+		if (!packageDirectory.isDirectory() && !packageDirectory.mkdirs())
+		{
+			throw new IOException("Could not create " + packageDirectory);
+		}
+
+		write(new File(packageDirectory, "MinigameStage.java"), generateMinigameStage());
+		write(new File(packageDirectory, "ItemOrderType.java"), generateItemOrderType());
+		write(new File(packageDirectory, "RecipeTables.java"), generateRecipeTables());
+	}
+
+	private void parse(File catalogFile) throws IOException
+	{
+		fileName = catalogFile.getName();
+		lineNumber = 0;
+		Order order = null;
+
+		for (String line : Files.readAllLines(catalogFile.toPath(), StandardCharsets.UTF_8))
+		{
+			lineNumber++;
+			String trimmed = line.trim();
+
+			if (trimmed.isEmpty() || trimmed.startsWith("#"))
+			{
+				continue;
+			}
+
+			// Indented lines belong to the order above them
+
+			if (Character.isWhitespace(line.charAt(0)))
+			{
+				if (order == null)
+				{
+					error("ingredient outside of an order");
+				}
+				else
+				{
+					parseIngredient(order, trimmed.split("\\s+"));
+				}
+				continue;
+			}
+
+			order = null;
+			String[] words = trimmed.split("\\s+", 2);
+			String rest = words.length > 1 ? words[1] : "";
+
+			switch (words[0])
+			{
+				case "stage":
+					parseStage(rest);
+					break;
+				case "type":
+					parseOrderType(rest.split("\\s+"));
+					break;
+				case "easy":
+					parseRecipient(rest, easyRecipients);
+					break;
+				case "hard":
+					parseRecipient(rest, hardRecipients);
+					break;
+				case "order":
+					order = parseOrder(rest);
+					break;
+				default:
+					error("unknown entry \"" + words[0] + "\"");
+			}
+		}
+
+		for (Order parsedOrder : orders)
+		{
+			if (parsedOrder.ingredients.isEmpty())
+			{
+				errors.add(fileName + ": order \"" + parsedOrder.name + "\" has no ingredients");
+			}
+
+			// Orders and recipients are looked up in the same table
+
+			if (easyRecipients.containsKey(parsedOrder.name) || hardRecipients.containsKey(parsedOrder.name))
+			{
+				errors.add(fileName + ": \"" + parsedOrder.name + "\" names both an order and a recipient");
+			}
+		}
+	}
+
+	private void parseStage(String rest)
+	{
+		String[] words = rest.split("\\s+", 2);
+
+		if (words.length < 2 || !checkConstantName(words[0]))
+		{
+			error("expected stage <name> <directions>");
+		}
+		else if (stages.put(words[0], words[1]) != null)
+		{
+			error("stage " + words[0] + " is listed twice");
+		}
+	}
+
+	private void parseOrderType(String[] words)
+	{
+		if (words.length != 4 || !checkConstantName(words[0]))
+		{
+			error("expected type <name> <mould> <half baked mould> <tool>");
+			return;
+		}
+
+		String[] items = Arrays.copyOfRange(words, 1, 4);
+		checkItems(items);
+
+		if (orderTypes.put(words[0], items) != null)
+		{
+			error("type " + words[0] + " is listed twice");
+		}
+	}
+
+	private void parseRecipient(String rest, Map<String, String> recipients)
+	{
+		String[] names = rest.split("=", 2);
+		String printedName = names[0].trim();
+		String realName = names.length > 1 ? names[1].trim() : null;
+
+		if (printedName.isEmpty() || (realName != null && realName.isEmpty()))
+		{
+			error("expected easy|hard <printed name> [= <in-game name>]");
+		}
+		else if (easyRecipients.containsKey(printedName) || hardRecipients.containsKey(printedName))
+		{
+			error("recipient " + printedName + " is listed twice");
+		}
+		else
+		{
+			recipients.put(printedName, realName);
+		}
+	}
+
+	private Order parseOrder(String rest)
+	{
+		int colon = rest.indexOf(':');
+
+		if (colon <= 0)
+		{
+			error("expected order <name>: <kind> <items>");
+			return null;
+		}
+
+		Order order = new Order();
+		order.name = rest.substring(0, colon).trim();
+		String[] words = rest.substring(colon + 1).trim().split("\\s+");
+		order.kind = ORDER_KINDS.indexOf(words[0]);
+
+		if (order.kind < 0)
+		{
+			error("unknown order kind \"" + words[0] + "\", expected one of " + ORDER_KINDS);
+			return null;
+		}
+
+		order.arguments = Arrays.copyOfRange(words, 1, words.length);
+
+		if (order.arguments.length != ORDER_KIND_ARITIES[order.kind])
+		{
+			error(words[0] + " orders list " + ORDER_KIND_ARITIES[order.kind] + " names, found " + order.arguments.length);
+			return null;
+		}
+
+		// Baked orders start with their order type, heated cocktails with their heat timing, both followed by items
+
+		int firstItem = 0;
+
+		if (order.kind <= 1)
+		{
+			if (!orderTypes.containsKey(order.arguments[0]))
+			{
+				error("unknown order type " + order.arguments[0] + ", types must be listed before the orders using them");
+			}
+			firstItem = 1;
+		}
+		else if (order.kind == 3)
+		{
+			checkConstantName(order.arguments[0]);
+			firstItem = 1;
+		}
+		checkItems(Arrays.copyOfRange(order.arguments, firstItem, order.arguments.length));
+
+		for (Order other : orders)
+		{
+			if (other.name.equals(order.name))
+			{
+				error("order \"" + order.name + "\" is listed twice");
+			}
+		}
+		orders.add(order);
+		return order;
+	}
+
+	private void parseIngredient(Order order, String[] words)
+	{
+		if (words.length != 3 || !(words[0].equals("ingredient") || words[0].equals("topping")))
+		{
+			error("expected ingredient|topping <item> <count>");
+			return;
+		}
+
+		checkItems(new String[]{words[1]});
+
+		try
+		{
+			if (Integer.parseInt(words[2]) <= 0)
+			{
+				error("ingredient counts must be positive");
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			error("\"" + words[2] + "\" is not a count");
+			return;
+		}
+		order.ingredients.add(words);
+	}
+
+	private void checkItems(String[] items)
+	{
+		for (String item : items)
+		{
+			if (!item.equals(NO_ITEM) && !itemIds.containsKey(item))
+			{
+				error("ItemID." + item + " does not exist");
+			}
+		}
+	}
+
+	private boolean checkConstantName(String name)
+	{
+		if (!CONSTANT_NAME.matcher(name).matches())
+		{
+			error("\"" + name + "\" is not a constant name");
+			return false;
+		}
+		return true;
+	}
+
+	private void error(String message)
+	{
+		errors.add(fileName + ":" + lineNumber + ": " + message);
+	}
+
+	/**
+	 * Build a minimal perfect hash over the order names and printed recipient names by hash and displace.
+	 * Names are put in buckets by their hash, then each bucket, largest first, gets the first seed that
+	 * moves all its names to free slots.
+	 */
+	private void buildNameTable()
+	{
+		List<String> keys = new ArrayList<>();
+		List<String> codes = new ArrayList<>();
+
+		for (int i = 0; i < orders.size(); i++)
+		{
+			keys.add(orders.get(i).name);
+			codes.add(String.valueOf(i));
+		}
+
+		int recipient = 0;
+
+		for (String printedName : easyRecipients.keySet())
+		{
+			keys.add(printedName);
+			codes.add("CatalogNames.RECIPIENT | " + recipient++);
+		}
+
+		for (String printedName : hardRecipients.keySet())
+		{
+			keys.add(printedName);
+			codes.add("CatalogNames.RECIPIENT | CatalogNames.HARD | " + recipient++);
+		}
+
+		int slotCount = keys.size();
+		int bucketCount = (slotCount + NAMES_PER_BUCKET - 1) / NAMES_PER_BUCKET;
+		int[] hashes = new int[slotCount];
+		List<List<Integer>> buckets = new ArrayList<>();
+
+		for (int bucket = 0; bucket < bucketCount; bucket++)
+		{
+			buckets.add(new ArrayList<>());
+		}
+
+		for (int i = 0; i < slotCount; i++)
+		{
+			hashes[i] = hash(keys.get(i));
+
+			for (int j = 0; j < i; j++)
+			{
+				if (hashes[j] == hashes[i])
+				{
+					throw new IllegalArgumentException("\"" + keys.get(i) + "\" and \"" + keys.get(j) + "\" have the same hash");
+				}
+			}
+			buckets.get(bucketOf(hashes[i], bucketCount)).add(i);
+		}
+
+		List<Integer> bucketOrder = new ArrayList<>();
+
+		for (int bucket = 0; bucket < bucketCount; bucket++)
+		{
+			bucketOrder.add(bucket);
+		}
+		bucketOrder.sort((a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+		nameKeys = new String[slotCount];
+		nameCodes = new String[slotCount];
+		nameSeeds = new int[bucketCount];
+
+		for (int bucket : bucketOrder)
+		{
+			List<Integer> members = buckets.get(bucket);
+
+			if (members.isEmpty())
+			{
+				break;
+			}
+
+			int[] slots = new int[members.size()];
+			int seed = 0;
+
+			while (!placeBucket(members, hashes, ++seed, slots))
+			{
+				if (seed == MAX_SEED)
+				{
+					throw new IllegalStateException("No perfect hash found for the catalog names");
+				}
+			}
+
+			nameSeeds[bucket] = seed;
+
+			for (int i = 0; i < slots.length; i++)
+			{
+				nameKeys[slots[i]] = keys.get(members.get(i));
+				nameCodes[slots[i]] = codes.get(members.get(i));
+			}
+		}
+	}
+
+	private boolean placeBucket(List<Integer> members, int[] hashes, int seed, int[] slots)
+	{
+		for (int i = 0; i < slots.length; i++)
+		{
+			slots[i] = slotOf(hashes[members.get(i)], seed, nameKeys.length);
+
+			if (nameKeys[slots[i]] != null)
+			{
+				return false;
+			}
+
+			for (int j = 0; j < i; j++)
+			{
+				if (slots[j] == slots[i])
+				{
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	// The hash, bucket and slot functions must match CatalogNames
+
+	static int hash(String name)
+	{
+		int hash = 0x811C9DC5;
+
+		for (int i = 0; i < name.length(); i++)
+		{
+			hash = (hash ^ name.charAt(i)) * 0x01000193;
+		}
+		return hash;
+	}
+
+	static int bucketOf(int hash, int bucketCount)
+	{
+		return (hash & Integer.MAX_VALUE) % bucketCount;
+	}
+
+	static int slotOf(int hash, int seed, int slotCount)
+	{
+		int h = hash ^ seed * 0x9E3779B9;
+		h = (h ^ h >>> 16) * 0x85EBCA6B;
+		h = (h ^ h >>> 13) * 0xC2B2AE35;
+		h ^= h >>> 16;
+		return (h & Integer.MAX_VALUE) % slotCount;
+	}
+
+	// Generated sources
+
+	private String generateMinigameStage()
+	{
+		StringBuilder source = header(false);
+		source.append("public enum MinigameStage\n{\n");
+
+		int i = 0;
+		for (Map.Entry<String, String> stage : stages.entrySet())
+		{
+			source.append('\t').append(stage.getKey()).append('(').append(quote(stage.getValue())).append(')')
+				.append(++i < stages.size() ? ",\n" : ";\n");
+		}
+
+		source.append("\n\tString directions;\n\n")
+			.append("\tMinigameStage(String directions)\n\t{\n\t\tthis.directions = directions;\n\t}\n}\n");
+		return source.toString();
+	}
+
+	private String generateItemOrderType()
+	{
+		StringBuilder source = header(true);
+		source.append("public enum ItemOrderType\n{\n");
+
+		int i = 0;
+		for (Map.Entry<String, String[]> orderType : orderTypes.entrySet())
+		{
+			String[] items = orderType.getValue();
+			source.append('\t').append(orderType.getKey()).append('(').append(item(items[0])).append(", ")
+				.append(item(items[1])).append(", ").append(item(items[2])).append(')')
+				.append(++i < orderTypes.size() ? ",\n" : ";\n");
+		}
+
+		source.append("\n\tprivate final int mouldId, halfBakedId, toolId;\n\n")
+			.append("\tItemOrderType(int mouldId, int halfBakedId, int toolId)\n\t{\n")
+			.append("\t\tthis.mouldId = mouldId;\n\t\tthis.halfBakedId = halfBakedId;\n\t\tthis.toolId = toolId;\n\t}\n\n")
+			.append("\tpublic int getMouldId()\n\t{\n\t\treturn mouldId;\n\t}\n\n")
+			.append("\tpublic int getHalfBakedId()\n\t{\n\t\treturn halfBakedId;\n\t}\n\n")
+			.append("\tpublic int getToolId()\n\t{\n\t\treturn toolId;\n\t}\n}\n");
+		return source.toString();
+	}
+
+	private String generateRecipeTables()
+	{
+		StringBuilder source = header(true);
+		source.append("final class RecipeTables\n{\n");
+
+		source.append("\t// Orders\n\n\tstatic final String[] ORDER_NAMES = {\n");
+		for (Order order : orders)
+		{
+			source.append("\t\t").append(quote(order.name)).append(",\n");
+		}
+
+		source.append("\t};\n\n\tstatic final int[] ORDER_KINDS = {\n");
+		for (Order order : orders)
+		{
+			source.append("\t\tRecipeCatalog.").append(ORDER_KIND_CONSTANTS[order.kind]).append(",\n");
+		}
+
+		// Cocktails have no order type or heat timing in the catalog
+
+		source.append("\t};\n\n\tstatic final ItemOrderType[] ORDER_TYPES = {\n");
+		for (Order order : orders)
+		{
+			source.append("\t\t").append(order.kind <= 1 ? "ItemOrderType." + order.arguments[0] : "null").append(",\n");
+		}
+
+		source.append("\t};\n\n\tstatic final HeatTiming[] HEAT_TIMINGS = {\n");
+		for (Order order : orders)
+		{
+			source.append("\t\t").append(order.kind == 3 ? "HeatTiming." + order.arguments[0] : "null").append(",\n");
+		}
+
+		source.append("\t};\n\n\t// Items each order kind lists, in catalog order\n\n\tstatic final int[][] ORDER_ITEM_IDS = {\n");
+		for (Order order : orders)
+		{
+			int firstItem = order.kind == 2 ? 0 : 1;
+			List<String> items = new ArrayList<>();
+			for (int i = firstItem; i < order.arguments.length; i++)
+			{
+				items.add(item(order.arguments[i]));
+			}
+			source.append("\t\t{").append(String.join(", ", items)).append("},\n");
+		}
+
+		source.append("\t};\n\n\t// Item ID, count and whether it is a topping, for every ingredient of each order\n\n")
+			.append("\tstatic final int[][] ORDER_INGREDIENTS = {\n");
+		for (Order order : orders)
+		{
+			List<String> ingredients = new ArrayList<>();
+			for (String[] ingredient : order.ingredients)
+			{
+				ingredients.add(item(ingredient[1]) + ", " + ingredient[2] + ", " + (ingredient[0].equals("topping") ? 1 : 0));
+			}
+			source.append("\t\t{").append(String.join(", ", ingredients)).append("},\n");
+		}
+		source.append("\t};\n");
+
+		appendRecipients(source, "EASY", easyRecipients);
+		appendRecipients(source, "HARD", hardRecipients);
+
+		source.append("\n\t// Perfect hash over order and printed recipient names, looked up by CatalogNames\n\n")
+			.append("\tstatic final int[] NAME_SEEDS = {");
+		for (int i = 0; i < nameSeeds.length; i++)
+		{
+			source.append(i == 0 ? "" : ", ").append(nameSeeds[i]);
+		}
+
+		source.append("};\n\n\tstatic final String[] NAME_KEYS = {\n");
+		for (String key : nameKeys)
+		{
+			source.append("\t\t").append(quote(key)).append(",\n");
+		}
+
+		source.append("\t};\n\n\tstatic final int[] NAME_CODES = {\n");
+		for (String code : nameCodes)
+		{
+			source.append("\t\t").append(code).append(",\n");
+		}
+		source.append("\t};\n");
+
+		source.append("\n\tprivate RecipeTables()\n\t{\n\t}\n}\n");
+		return source.toString();
+	}
+
+	private static void appendRecipients(StringBuilder source, String difficulty, Map<String, String> recipients)
+	{
+		source.append("\n\t// ").append(difficulty.charAt(0)).append(difficulty.substring(1).toLowerCase())
+			.append(" order recipients, printed names and in-game names where they differ\n\n")
+			.append("\tstatic final String[] ").append(difficulty).append("_RECIPIENT_NAMES = {\n");
+		for (String printedName : recipients.keySet())
+		{
+			source.append("\t\t").append(quote(printedName)).append(",\n");
+		}
+
+		source.append("\t};\n\n\tstatic final String[] ").append(difficulty).append("_RECIPIENT_REAL_NAMES = {\n");
+		for (String realName : recipients.values())
+		{
+			source.append("\t\t").append(realName == null ? "null" : quote(realName)).append(",\n");
+		}
+		source.append("\t};\n");
+	}
+
+	private static StringBuilder header(boolean importItemId)
+	{
+		StringBuilder source = new StringBuilder()
+			.append("// Generated from the recipe catalog by RecipeCatalogGenerator, do not edit\n\n")
+			.append("package ").append(PACKAGE).append(";\n\n");
+
+		if (importItemId)
+		{
+			source.append("import net.runelite.api.ItemID;\n\n");
+		}
+		return source;
+	}
+
+	private static String item(String name)
+	{
+		return name.equals(NO_ITEM) ? "-1" : "ItemID." + name;
+	}
+
+	private static String quote(String text)
+	{
+		return '"' + text.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+	}
+
+	private static void write(File file, String source) throws IOException
+	{
+		Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+	}
+}
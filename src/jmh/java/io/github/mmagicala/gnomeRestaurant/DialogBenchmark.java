@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Dialog detection and parsing in onGameTick
+ */
+@State(Scope.Thread)
+public class DialogBenchmark
+{
+	private static final String DELIVERY_DIALOG = PluginHarness.deliveryDialog("His Royal Highness King Narnode", "choc saturday");
+	private static final String SMALL_TALK_DIALOG = "Welcome to the Gnome Restaurant! Would you like an easy<br>job or a hard job today?";
+	private static final String OTHER_SMALL_TALK_DIALOG = "Come back when you have finished your current order,<br>the customers are waiting.";
+
+	private final DialogClassifier dialogClassifier = new DialogClassifier(DialogLine.values());
+	private final DialogMatch dialogMatch = new DialogMatch();
+
+	private PluginHarness idleHarness;
+	private PluginHarness dialogHarness;
+
+	private final Widget[] dialogTextWidgets = {
+		FakeClient.createWidget(SMALL_TALK_DIALOG),
+		FakeClient.createWidget(OTHER_SMALL_TALK_DIALOG)
+	};
+	private int dialogTextIndex;
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		// No dialog open, the watcher disarms on the first tick
+
+		idleHarness = new PluginHarness(false);
+		idleHarness.tick();
+
+		dialogHarness = new PluginHarness(false);
+		dialogHarness.openDialog(PluginHarness.GIANNE_JNR_NAME, SMALL_TALK_DIALOG);
+		dialogHarness.tick();
+	}
+
+	@Benchmark
+	public boolean classifyDeliveryDialog()
+	{
+		return dialogClassifier.classify(DELIVERY_DIALOG, dialogMatch);
+	}
+
+	@Benchmark
+	public boolean classifySmallTalkDialog()
+	{
+		return dialogClassifier.classify(SMALL_TALK_DIALOG, dialogMatch);
+	}
+
+	@Benchmark
+	public void gameTickWithoutDialog()
+	{
+		idleHarness.tick();
+	}
+
+	@Benchmark
+	public void gameTickWithUnchangedDialog()
+	{
+		dialogHarness.tick();
+	}
+
+	@Benchmark
+	public void gameTickWithChangedDialog()
+	{
+		dialogTextIndex ^= 1;
+		dialogHarness.getFakeClient().setWidget(WidgetInfo.DIALOG_NPC_TEXT, dialogTextWidgets[dialogTextIndex]);
+		dialogHarness.tick();
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.util.Arrays;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The order each benchmark runs with, shared by every benchmark that is parameterized by order. JMH needs the
+ * names as constants, so they are checked against the generated catalog before running.
+ */
+@State(Scope.Thread)
+public class OrderParams
+{
+	@Param({
+		"worm hole", "vegetable ball", "tangled toads legs", "chocolate bomb",
+		"fruit batta", "toad batta", "worm batta", "vegetable batta", "cheese and tomato batta",
+		"choc chip crunchies", "spicy crunchies", "toad crunchies", "worm crunchies",
+		"fruit blast", "pineapple punch", "wizard blizzard", "short green guy",
+		"drunk dragon", "choc saturday", "blurberry special"
+	})
+	public String orderName;
+
+	@Setup
+	public void checkOrderNames() throws NoSuchFieldException
+	{
+		String[] paramNames = OrderParams.class.getField("orderName").getAnnotation(Param.class).value().clone();
+		String[] catalogNames = RecipeTables.ORDER_NAMES.clone();
+		Arrays.sort(paramNames);
+		Arrays.sort(catalogNames);
+
+		if (!Arrays.equals(paramNames, catalogNames))
+		{
+			throw new IllegalStateException("Benchmark orders " + Arrays.toString(paramNames) + " do not match recipes.txt "
+				+ Arrays.toString(catalogNames));
+		}
+	}
+}
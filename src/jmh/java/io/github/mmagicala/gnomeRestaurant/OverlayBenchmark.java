@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * GnomeRestaurantOverlay.render, both for frames where nothing changed and right after the plugin published new state
+ */
+@State(Scope.Thread)
+public class OverlayBenchmark
+{
+	private String orderName;
+	private PluginHarness harness;
+	private GnomeRestaurantOverlay overlay;
+	private Graphics2D graphics;
+
+	@Setup
+	public void setUp(OrderParams orderParams) throws Exception
+	{
+		orderName = orderParams.orderName;
+		harness = new PluginHarness(false);
+		harness.getPlugin().startTrackingDelivery("Captain Errdo", orderName);
+		harness.setInventory(PluginHarness.inventoryForStage(PluginHarness.getStagePlan(orderName), 2));
+
+		overlay = new GnomeRestaurantOverlay(harness.getPlugin());
+		graphics = new BufferedImage(400, 400, BufferedImage.TYPE_INT_ARGB).createGraphics();
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		graphics.dispose();
+	}
+
+	@Benchmark
+	public Dimension renderUnchanged()
+	{
+		return overlay.render(graphics);
+	}
+
+	@Benchmark
+	public Dimension renderAfterStateChange()
+	{
+		harness.getPlugin().publishOverlaySnapshot();
+		return overlay.render(graphics);
+	}
+}
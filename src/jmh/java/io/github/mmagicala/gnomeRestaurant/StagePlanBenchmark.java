@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import io.github.mmagicala.gnomeRestaurant.itemOrder.ItemOrder;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Building a stage plan from scratch, as rebuildStageNodeList did for every order, against picking a prebuilt one
+ */
+@State(Scope.Thread)
+public class StagePlanBenchmark
+{
+	private String orderName;
+	private ItemOrder itemOrder;
+	private Map<String, StagePlan> stagePlans;
+
+	@Setup
+	public void setUp(OrderParams orderParams)
+	{
+		orderName = orderParams.orderName;
+		itemOrder = GnomeRestaurantPlugin.itemOrders.get(orderName);
+		stagePlans = StagePlan.compileAll(GnomeRestaurantPlugin.itemOrders);
+	}
+
+	@Benchmark
+	public StagePlan compileStagePlan()
+	{
+		return StagePlan.compile(itemOrder);
+	}
+
+	@Benchmark
+	public StagePlan selectPrebuiltStagePlan()
+	{
+		return stagePlans.get(orderName);
+	}
+}
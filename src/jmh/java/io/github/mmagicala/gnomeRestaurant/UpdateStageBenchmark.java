@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemID;
+import net.runelite.api.events.ItemContainerChanged;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Inventory handling while an order is tracked: updateStage through an ItemContainerChanged event, and the overlay snapshot rebuild
+ */
+@State(Scope.Thread)
+public class UpdateStageBenchmark
+{
+	private String orderName;
+	private PluginHarness harness;
+
+	// Pairs of inventories that the benchmarks alternate between
+
+	private ItemContainerChanged[] stageChangeEvents;
+	private ItemContainerChanged[] countChangeEvents;
+	private ItemContainerChanged[] unrelatedChangeEvents;
+	private int eventIndex;
+
+	@Setup
+	public void setUp(OrderParams orderParams) throws Exception
+	{
+		orderName = orderParams.orderName;
+		harness = new PluginHarness(false);
+		harness.getPlugin().startTrackingDelivery("Captain Errdo", orderName);
+
+		StagePlan stagePlan = PluginHarness.getStagePlan(orderName);
+		Item extraRequiredItem = new Item(stagePlan.getStageNode(stagePlan.size() - 1).getOtherRequiredItems().get(0).getItemId(), 1);
+
+		stageChangeEvents = new ItemContainerChanged[]{
+			inventoryChanged(stagePlan, 1),
+			inventoryChanged(stagePlan, 2)
+		};
+		countChangeEvents = new ItemContainerChanged[]{
+			inventoryChanged(stagePlan, 1),
+			inventoryChanged(stagePlan, 1, extraRequiredItem)
+		};
+		unrelatedChangeEvents = new ItemContainerChanged[]{
+			inventoryChanged(stagePlan, 1),
+			inventoryChanged(stagePlan, 1, new Item(ItemID.BONES, 1))
+		};
+
+		harness.getEventBus().post(stageChangeEvents[0]);
+	}
+
+	private static ItemContainerChanged inventoryChanged(StagePlan stagePlan, int stageNodeIndex, Item... extraItems)
+	{
+		return new ItemContainerChanged(InventoryID.INVENTORY.getId(), PluginHarness.inventoryForStage(stagePlan, stageNodeIndex, extraItems));
+	}
+
+	@Benchmark
+	public void inventoryChangeMovingStage()
+	{
+		eventIndex ^= 1;
+		harness.getEventBus().post(stageChangeEvents[eventIndex]);
+	}
+
+	@Benchmark
+	public void inventoryChangeOfIngredientCount()
+	{
+		eventIndex ^= 1;
+		harness.getEventBus().post(countChangeEvents[eventIndex]);
+	}
+
+	@Benchmark
+	public void inventoryChangeOfUnrelatedItem()
+	{
+		eventIndex ^= 1;
+		harness.getEventBus().post(unrelatedChangeEvents[eventIndex]);
+	}
+
+	@Benchmark
+	public void publishOverlaySnapshot()
+	{
+		harness.getPlugin().publishOverlaySnapshot();
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+/**
+ * Minimal perfect hash over the order names and printed recipient names of the recipe catalog, generated
+ * with the rest of RecipeTables. A name is looked up straight from a span of dialog text, reading each <br>
+ * tag as a single space, and a single probe tells whether it is an order or a recipient, its ordinal in the
+ * catalog and whether the recipient gives hard orders.
+ */
+final class CatalogNames
+{
+	static final int NOT_FOUND = -1;
+
+	// Codes hold the ordinal in the low bits and these flags above it
+
+	static final int RECIPIENT = 1 << 8;
+	static final int HARD = 1 << 9;
+
+	private static final int ORDINAL_MASK = RECIPIENT - 1;
+
+	private CatalogNames()
+	{
+	}
+
+	/**
+	 * @return the code of the name spanning [start, end) of the text, or NOT_FOUND
+	 */
+	static int lookup(CharSequence text, int start, int end)
+	{
+		if (text == null || start < 0)
+		{
+			return NOT_FOUND;
+		}
+
+		int hash = hash(text, start, end);
+		int seed = RecipeTables.NAME_SEEDS[bucketOf(hash, RecipeTables.NAME_SEEDS.length)];
+		int slot = slotOf(hash, seed, RecipeTables.NAME_KEYS.length);
+
+		return matches(text, start, end, RecipeTables.NAME_KEYS[slot]) ? RecipeTables.NAME_CODES[slot] : NOT_FOUND;
+	}
+
+	static int lookup(String name)
+	{
+		return name == null ? NOT_FOUND : lookup(name, 0, name.length());
+	}
+
+	static boolean isOrder(int code)
+	{
+		return code != NOT_FOUND && (code & RECIPIENT) == 0;
+	}
+
+	static boolean isRecipient(int code)
+	{
+		return code != NOT_FOUND && (code & RECIPIENT) != 0;
+	}
+
+	static boolean isHard(int code)
+	{
+		return (code & HARD) != 0;
+	}
+
+	/**
+	 * @return the catalog index of the order, or of the recipient counting easy recipients first
+	 */
+	static int getOrdinal(int code)
+	{
+		return code & ORDINAL_MASK;
+	}
+
+	// The hash, bucket and slot functions must match RecipeCatalogGenerator
+
+	private static int hash(CharSequence text, int start, int end)
+	{
+		int hash = 0x811C9DC5;
+
+		for (int i = start; i < end; )
+		{
+			if (DialogClassifier.isLineBreakAt(text, i))
+			{
+				hash = (hash ^ ' ') * 0x01000193;
+				i += DialogClassifier.LINE_BREAK.length();
+			}
+			else
+			{
+				hash = (hash ^ text.charAt(i++)) * 0x01000193;
+			}
+		}
+		return hash;
+	}
+
+	private static int bucketOf(int hash, int bucketCount)
+	{
+		return (hash & Integer.MAX_VALUE) % bucketCount;
+	}
+
+	private static int slotOf(int hash, int seed, int slotCount)
+	{
+		int h = hash ^ seed * 0x9E3779B9;
+		h = (h ^ h >>> 16) * 0x85EBCA6B;
+		h = (h ^ h >>> 13) * 0xC2B2AE35;
+		h ^= h >>> 16;
+		return (h & Integer.MAX_VALUE) % slotCount;
+	}
+
+	private static boolean matches(CharSequence text, int start, int end, String key)
+	{
+		int k = 0;
+
+		for (int i = start; i < end; k++)
+		{
+			if (k == key.length())
+			{
+				return false;
+			}
+
+			if (DialogClassifier.isLineBreakAt(text, i))
+			{
+				if (key.charAt(k) != ' ')
+				{
+					return false;
+				}
+				i += DialogClassifier.LINE_BREAK.length();
+			}
+			else if (text.charAt(i++) != key.charAt(k))
+			{
+				return false;
+			}
+		}
+		return k == key.length();
+	}
+}
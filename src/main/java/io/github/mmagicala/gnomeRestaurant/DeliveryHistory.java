@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only history of deliveries, kept in a memory-mapped file so it survives client restarts. The file is a
+ * header followed by fixed-size DeliveryRecords in the order the deliveries ended. The record count in the header
+ * is only raised once a record has been written, so a record cut short by a crash is never read back.
+ *
+ * Records are appended in time order, so time ranges are found by binary search over their start times, and an
+ * in-memory list of record numbers per order lets per-order queries skip every other record. All file work runs
+ * on a single background thread: the client thread only queues appends and receives query results as futures.
+ */
+@Slf4j
+public class DeliveryHistory
+{
+	public static final int MAGIC = 0x474E5248;
+	public static final int VERSION = 1;
+
+	public static final int ANY_ORDER = -1;
+
+	// Header: magic, version, record size, record count
+
+	private static final int HEADER_SIZE = 32;
+	private static final int VERSION_OFFSET = 4;
+	private static final int RECORD_SIZE_OFFSET = 6;
+	private static final int COUNT_OFFSET = 8;
+
+	// The mapping starts with room for this many records and doubles when full
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable ->
+	{
+		Thread thread = new Thread(runnable, "Gnome Restaurant history");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// File opened from the client thread, or null
+
+	private File file;
+
+	// Whether the file could be opened and locked, set on the history thread
+
+	private volatile boolean isFileOpen;
+
+	// Only touched on the history thread
+
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private int capacity;
+	private int recordCount;
+
+	// Record numbers of each order, in file order
+
+	private final int[][] orderRecords = new int[256][];
+	private final int[] orderRecordCounts = new int[256];
+
+	public DeliveryHistory()
+	{
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * @return true once the file has been opened and locked, false while it is closed, still opening or could not
+	 * be opened
+	 */
+	public boolean isOpen()
+	{
+		return isFileOpen;
+	}
+
+	/**
+	 * Open the file on the history thread. Opening it again after it could not be opened tries once more.
+	 */
+	public void open(File file)
+	{
+		if (this.file != null && isFileOpen)
+		{
+			return;
+		}
+
+		this.file = file;
+		executor.execute(() -> openFile(file));
+	}
+
+	/**
+	 * Close the file once every queued append has been written
+	 */
+	public void close()
+	{
+		if (file == null)
+		{
+			return;
+		}
+
+		file = null;
+		executor.execute(this::closeFile);
+	}
+
+	/**
+	 * Queue a finished record to be appended, it must not be changed afterwards
+	 */
+	public void append(DeliveryRecord record)
+	{
+		if (file != null)
+		{
+			executor.execute(() -> appendRecord(record));
+		}
+	}
+
+	/**
+	 * @param order an order ordinal from the recipe catalog, or ANY_ORDER
+	 * @return the records of deliveries started from fromMillis up to but not including toMillis, oldest first,
+	 * completed on the history thread
+	 */
+	public CompletableFuture<List<DeliveryRecord>> query(long fromMillis, long toMillis, int order)
+	{
+		if (file == null)
+		{
+			return CompletableFuture.completedFuture(Collections.emptyList());
+		}
+		return CompletableFuture.supplyAsync(() -> queryRecords(fromMillis, toMillis, order), executor);
+	}
+
+	private void openFile(File file)
+	{
+		if (channel != null)
+		{
+			return;
+		}
+
+		try
+		{
+			File directory = file.getParentFile();
+
+			if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+			{
+				throw new IOException("Could not create " + directory);
+			}
+
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+			// A second client appending to the same file would overwrite the records and count of the first
+
+			if (tryLock() == null)
+			{
+				log.info("Delivery history {} is in use by another client, deliveries will not be saved", file);
+				closeFile();
+				return;
+			}
+
+			long size = channel.size();
+
+			if (size == 0)
+			{
+				recordCount = 0;
+				map(INITIAL_CAPACITY);
+				buffer.putInt(0, MAGIC);
+				buffer.putShort(VERSION_OFFSET, (short) VERSION);
+				buffer.putShort(RECORD_SIZE_OFFSET, (short) DeliveryRecord.SIZE);
+				buffer.putLong(COUNT_OFFSET, 0);
+			}
+			else
+			{
+				// Mapping past the end grows the file, so only map it once the header has been read
+
+				checkHeader(size);
+				map((int) Math.max(INITIAL_CAPACITY, (size - HEADER_SIZE) / DeliveryRecord.SIZE));
+			}
+
+			buildIndex();
+			isFileOpen = true;
+			log.debug("Opened delivery history {} with {} records", file, recordCount);
+		}
+		catch (IOException e)
+		{
+			// Leave a file we can't read as it is rather than writing over it
+
+			log.warn("Could not open delivery history {}", file, e);
+			closeFile();
+		}
+	}
+
+	/**
+	 * @return the lock on the whole file, released when the channel closes, or null if another client holds it
+	 */
+	private FileLock tryLock() throws IOException
+	{
+		try
+		{
+			return channel.tryLock();
+		}
+		catch (OverlappingFileLockException e)
+		{
+			// Held by another plugin instance in this process
+
+			return null;
+		}
+	}
+
+	private void checkHeader(long size) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+		while (header.hasRemaining() && channel.read(header, header.position()) > 0)
+		{
+		}
+
+		if (size < HEADER_SIZE || header.getInt(0) != MAGIC)
+		{
+			throw new IOException("Not a delivery history");
+		}
+
+		if (header.getShort(VERSION_OFFSET) != VERSION || header.getShort(RECORD_SIZE_OFFSET) != DeliveryRecord.SIZE)
+		{
+			throw new IOException("Unsupported delivery history version " + header.getShort(VERSION_OFFSET));
+		}
+
+		long count = header.getLong(COUNT_OFFSET);
+
+		if (count < 0 || HEADER_SIZE + count * DeliveryRecord.SIZE > size)
+		{
+			throw new IOException("Delivery history holds fewer records than its header counts");
+		}
+
+		recordCount = (int) count;
+	}
+
+	/**
+	 * Map the header and room for the given number of records, growing the file if needed
+	 */
+	private void map(int capacity) throws IOException
+	{
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * DeliveryRecord.SIZE);
+		this.capacity = capacity;
+	}
+
+	private void buildIndex()
+	{
+		Arrays.fill(orderRecordCounts, 0);
+
+		for (int i = 0; i < recordCount; i++)
+		{
+			addToIndex(DeliveryRecord.readOrder(buffer, getOffset(i)), i);
+		}
+	}
+
+	private void addToIndex(int order, int recordNumber)
+	{
+		int[] records = orderRecords[order];
+
+		if (records == null)
+		{
+			records = orderRecords[order] = new int[64];
+		}
+		else if (orderRecordCounts[order] == records.length)
+		{
+			records = orderRecords[order] = Arrays.copyOf(records, records.length * 2);
+		}
+
+		records[orderRecordCounts[order]++] = recordNumber;
+	}
+
+	private void appendRecord(DeliveryRecord record)
+	{
+		if (buffer == null)
+		{
+			return;
+		}
+
+		try
+		{
+			if (recordCount == capacity)
+			{
+				map(capacity * 2);
+			}
+		}
+		catch (IOException e)
+		{
+			log.warn("Could not grow delivery history", e);
+			closeFile();
+			return;
+		}
+
+		record.write(buffer, getOffset(recordCount));
+		buffer.putLong(COUNT_OFFSET, recordCount + 1);
+		addToIndex(record.getOrder(), recordCount++);
+	}
+
+	private List<DeliveryRecord> queryRecords(long fromMillis, long toMillis, int order)
+	{
+		List<DeliveryRecord> records = new ArrayList<>();
+
+		if (buffer == null)
+		{
+			return records;
+		}
+
+		int[] recordNumbers = order == ANY_ORDER ? null : orderRecords[order];
+		int count = order == ANY_ORDER ? recordCount : orderRecordCounts[order];
+
+		// Binary search for the first record started at or after fromMillis
+
+		int low = 0, high = count;
+
+		while (low < high)
+		{
+			int middle = (low + high) >>> 1;
+
+			if (DeliveryRecord.readStartMillis(buffer, getOffset(recordNumbers, middle)) < fromMillis)
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+
+		for (int i = low; i < count; i++)
+		{
+			int offset = getOffset(recordNumbers, i);
+
+			if (DeliveryRecord.readStartMillis(buffer, offset) >= toMillis)
+			{
+				break;
+			}
+			records.add(DeliveryRecord.read(buffer, offset));
+		}
+		return records;
+	}
+
+	private static int getOffset(int recordNumber)
+	{
+		return HEADER_SIZE + recordNumber * DeliveryRecord.SIZE;
+	}
+
+	private static int getOffset(int[] recordNumbers, int i)
+	{
+		return getOffset(recordNumbers == null ? i : recordNumbers[i]);
+	}
+
+	private void closeFile()
+	{
+		isFileOpen = false;
+
+		if (buffer != null)
+		{
+			buffer.force();
+			buffer = null;
+		}
+
+		if (channel != null)
+		{
+			try
+			{
+				channel.close();
+			}
+			catch (IOException e)
+			{
+				log.warn("Could not close delivery history", e);
+			}
+			channel = null;
+		}
+	}
+}
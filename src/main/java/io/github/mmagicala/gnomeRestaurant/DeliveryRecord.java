@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * One finished or abandoned delivery, as stored in the delivery history. The plugin fills it in on the client
+ * thread and hands it over to the history when the order ends.
+ *
+ * A record is SIZE bytes: the start time in epoch milliseconds, the duration in game ticks, the order and
+ * recipient ordinals from the recipe catalog, a flags byte, a reserved byte, then for every stage the tick,
+ * counted from the start, on which it was first reached or NOT_REACHED.
+ */
+public class DeliveryRecord
+{
+	static final int STAGE_SLOTS = 8;
+	static final int SIZE = 16 + STAGE_SLOTS * Integer.BYTES;
+
+	public static final int NOT_REACHED = -1;
+
+	private static final int HARD = 1;
+	private static final int DELIVERED = 2;
+
+	static
+	{
+		if (MinigameStage.values().length > STAGE_SLOTS)
+		{
+			throw new IllegalStateException("Delivery records only have room for " + STAGE_SLOTS + " stages");
+		}
+	}
+
+	@Getter
+	private final long startMillis;
+
+	private final int startTick;
+
+	@Getter
+	private int durationTicks;
+
+	@Getter
+	private final int order, recipient;
+
+	@Getter
+	private final boolean hard;
+
+	@Getter
+	private boolean delivered;
+
+	private final int[] stageTicks = new int[STAGE_SLOTS];
+
+	public DeliveryRecord(int order, int recipient, boolean hard, long startMillis, int startTick)
+	{
+		this.order = order;
+		this.recipient = recipient;
+		this.hard = hard;
+		this.startMillis = startMillis;
+		this.startTick = startTick;
+		Arrays.fill(stageTicks, NOT_REACHED);
+	}
+
+	/**
+	 * Note the tick a stage is first reached on, going back to a stage keeps the first tick
+	 */
+	public void enterStage(MinigameStage stage, int tick)
+	{
+		if (stageTicks[stage.ordinal()] == NOT_REACHED)
+		{
+			stageTicks[stage.ordinal()] = tick - startTick;
+		}
+	}
+
+	public void end(boolean delivered, int tick)
+	{
+		this.delivered = delivered;
+		this.durationTicks = tick - startTick;
+	}
+
+	/**
+	 * @return the tick, counted from the start, on which the stage was first reached, or NOT_REACHED
+	 */
+	public int getStageTick(MinigameStage stage)
+	{
+		return stageTicks[stage.ordinal()];
+	}
+
+	void write(ByteBuffer buffer, int offset)
+	{
+		buffer.putLong(offset, startMillis);
+		buffer.putInt(offset + 8, durationTicks);
+		buffer.put(offset + 12, (byte) order);
+		buffer.put(offset + 13, (byte) recipient);
+		buffer.put(offset + 14, (byte) ((hard ? HARD : 0) | (delivered ? DELIVERED : 0)));
+		buffer.put(offset + 15, (byte) 0);
+
+		for (int i = 0; i < STAGE_SLOTS; i++)
+		{
+			buffer.putInt(offset + 16 + i * Integer.BYTES, stageTicks[i]);
+		}
+	}
+
+	static DeliveryRecord read(ByteBuffer buffer, int offset)
+	{
+		int flags = buffer.get(offset + 14);
+		DeliveryRecord record = new DeliveryRecord(buffer.get(offset + 12) & 0xFF, buffer.get(offset + 13) & 0xFF,
+			(flags & HARD) != 0, buffer.getLong(offset), 0);
+		record.end((flags & DELIVERED) != 0, buffer.getInt(offset + 8));
+
+		for (int i = 0; i < STAGE_SLOTS; i++)
+		{
+			record.stageTicks[i] = buffer.getInt(offset + 16 + i * Integer.BYTES);
+		}
+		return record;
+	}
+
+	/**
+	 * @return the start time of the record at the given offset, without reading the rest of it
+	 */
+	static long readStartMillis(ByteBuffer buffer, int offset)
+	{
+		return buffer.getLong(offset);
+	}
+
+	static int readOrder(ByteBuffer buffer, int offset)
+	{
+		return buffer.get(offset + 12) & 0xFF;
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.InventoryID;
+import net.runelite.api.NPC;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.client.eventbus.Subscribe;
+
+/**
+ * Handles the events that only matter while a delivery is tracked. The plugin registers it on the event bus
+ * when an order starts and unregisters it when the order ends, so none of these events reach the plugin
+ * the rest of the time.
+ */
+public class DeliveryTracker
+{
+	private final GnomeRestaurantPlugin plugin;
+	private final Client client;
+	private final GnomeRestaurantConfig config;
+	private final VarbitWatcher varbitWatcher;
+	private final HandlerStats handlerStats;
+
+	// Loaded recipient NPCs, filled from the NPC cache on the tick an order is read and kept up to date while it lasts
+
+	private final RecipientIndex recipientNpcs = new RecipientIndex(RecipeCatalog.getRecipientRealNames());
+	private int recipientIndex = RecipientIndex.NOT_A_RECIPIENT;
+
+	// Test deliveries never set the delivery varbit, so they only end when reset
+
+	private boolean endOnDeliveryVarbit;
+
+	public DeliveryTracker(GnomeRestaurantPlugin plugin, Client client, GnomeRestaurantConfig config, VarbitWatcher varbitWatcher)
+	{
+		this.plugin = plugin;
+		this.client = client;
+		this.config = config;
+		this.varbitWatcher = varbitWatcher;
+		this.handlerStats = plugin.getHandlerStats();
+
+		varbitWatcher.watch(GnomeRestaurantPlugin.DELIVERY_VARBIT_ID);
+	}
+
+	/**
+	 * Start the delivery, before registering on the event bus or while still registered for a replaced order
+	 */
+	public void start(String recipientRealName, boolean endOnDeliveryVarbit)
+	{
+		this.recipientIndex = recipientNpcs.getRecipientIndex(recipientRealName);
+		this.endOnDeliveryVarbit = endOnDeliveryVarbit;
+
+		// The delivery ends when the varbit next changes to 0, so start from its current value
+
+		varbitWatcher.sync();
+	}
+
+	/**
+	 * Find the recipients that were loaded before we saw them spawn. Spawns seen since the tracker was
+	 * registered are in the NPC cache as well.
+	 */
+	public void seedRecipients()
+	{
+		recipientNpcs.clear();
+		recipientNpcs.seed(client.getCachedNPCs());
+	}
+
+	/**
+	 * Point the hint arrow at the recipient if it is loaded
+	 */
+	public void markRecipient()
+	{
+		NPC npc = recipientNpcs.getLoadedRecipient(recipientIndex);
+
+		if (npc != null)
+		{
+			client.setHintArrow(npc);
+		}
+	}
+
+	@Subscribe
+	public void onGameStateChanged(GameStateChanged event)
+	{
+		// NPCs are unloaded without despawn events when logging out or hopping
+
+		if (event.getGameState() == GameState.LOGIN_SCREEN || event.getGameState() == GameState.HOPPING)
+		{
+			recipientNpcs.clear();
+		}
+	}
+
+	@Subscribe
+	public void onNpcSpawned(final NpcSpawned event)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			if (recipientNpcs.onNpcSpawned(event.getNpc()) == recipientIndex && config.showHintArrow())
+			{
+				client.setHintArrow(event.getNpc());
+			}
+		}
+		finally
+		{
+			handlerStats.record(TimedHandler.NPC_SPAWNED, start);
+		}
+	}
+
+	@Subscribe
+	public void onNpcDespawned(final NpcDespawned event)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			if (recipientNpcs.onNpcDespawned(event.getNpc()) == recipientIndex && config.showHintArrow())
+			{
+				client.clearHintArrow();
+			}
+		}
+		finally
+		{
+			handlerStats.record(TimedHandler.NPC_DESPAWNED, start);
+		}
+	}
+
+	@Subscribe
+	public void onVarbitChanged(VarbitChanged event)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			// Most varbit changes have nothing to do with the minigame
+
+			if (!varbitWatcher.onVarbitChanged(event.getIndex()) || !varbitWatcher.hasChanged(GnomeRestaurantPlugin.DELIVERY_VARBIT_ID))
+			{
+				return;
+			}
+
+			// The delivery is over once the varbit is cleared
+
+			if (endOnDeliveryVarbit && varbitWatcher.getValue(GnomeRestaurantPlugin.DELIVERY_VARBIT_ID) == 0)
+			{
+				plugin.onDeliveryCompleted();
+			}
+		}
+		finally
+		{
+			handlerStats.record(TimedHandler.VARBIT_CHANGED, start);
+		}
+	}
+
+	@Subscribe
+	public void onItemContainerChanged(ItemContainerChanged event)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			if (event.getContainerId() == InventoryID.INVENTORY.getId())
+			{
+				plugin.onInventoryChanged(event.getItemContainer());
+			}
+		}
+		finally
+		{
+			handlerStats.record(TimedHandler.ITEM_CONTAINER_CHANGED, start);
+		}
+	}
+}
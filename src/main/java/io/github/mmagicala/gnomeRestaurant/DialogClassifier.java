@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Aho-Corasick automaton over the phrases of a set of dialog lines. A dialog is classified in one pass
+ * over the raw widget text, reading each <br> tag as a single space without copying the text.
+ */
+public class DialogClassifier
+{
+	static final String LINE_BREAK = "<br>";
+
+	// Characters that do not appear in any phrase share class 0
+
+	private final byte[] charClasses = new byte[128];
+	private final int classCount;
+
+	// Transition table indexed by state * classCount + character class
+
+	private final int[] transitions;
+
+	// Bitmask of phrases that end at each state, including those reached through failure links
+
+	private final int[] outputs;
+
+	private final DialogLine[] phraseLines;
+	private final int[] phraseLengths;
+
+	public DialogClassifier(DialogLine... dialogLines)
+	{
+		ArrayList<DialogLine> lines = new ArrayList<>();
+		ArrayList<String> phrases = new ArrayList<>();
+
+		for (DialogLine dialogLine : dialogLines)
+		{
+			for (String phrase : dialogLine.getPhrases())
+			{
+				lines.add(dialogLine);
+				phrases.add(phrase);
+			}
+		}
+
+		if (phrases.size() > Integer.SIZE)
+		{
+			throw new IllegalArgumentException("Too many dialog phrases: " + phrases.size());
+		}
+
+		phraseLines = lines.toArray(new DialogLine[0]);
+		phraseLengths = new int[phrases.size()];
+
+		// Assign a class to every character used by the phrases
+
+		int nextClass = 1;
+		int stateCount = 1;
+
+		for (int i = 0; i < phrases.size(); i++)
+		{
+			String phrase = phrases.get(i);
+			phraseLengths[i] = phrase.length();
+			stateCount += phrase.length();
+
+			for (char c : phrase.toCharArray())
+			{
+				if (c >= charClasses.length)
+				{
+					throw new IllegalArgumentException("Dialog phrases must be ASCII: " + phrase);
+				}
+
+				if (charClasses[c] == 0)
+				{
+					charClasses[c] = (byte) nextClass++;
+				}
+			}
+		}
+
+		classCount = nextClass;
+
+		// Build the trie, 0 marks a missing edge since the root is never a child
+
+		int[] trie = new int[stateCount * classCount];
+		int[] trieOutputs = new int[stateCount];
+		int usedStates = 1;
+
+		for (int i = 0; i < phrases.size(); i++)
+		{
+			int state = 0;
+
+			for (char c : phrases.get(i).toCharArray())
+			{
+				int edge = state * classCount + charClasses[c];
+
+				if (trie[edge] == 0)
+				{
+					trie[edge] = usedStates++;
+				}
+
+				state = trie[edge];
+			}
+
+			trieOutputs[state] |= 1 << i;
+		}
+
+		// Breadth-first pass to resolve failure links into a complete transition table
+
+		transitions = new int[usedStates * classCount];
+		outputs = Arrays.copyOf(trieOutputs, usedStates);
+
+		int[] failures = new int[usedStates];
+		int[] queue = new int[usedStates];
+		int head = 0, tail = 0;
+
+		for (int charClass = 0; charClass < classCount; charClass++)
+		{
+			int child = trie[charClass];
+			transitions[charClass] = child;
+
+			if (child != 0)
+			{
+				queue[tail++] = child;
+			}
+		}
+
+		while (head < tail)
+		{
+			int state = queue[head++];
+			outputs[state] |= outputs[failures[state]];
+
+			for (int charClass = 0; charClass < classCount; charClass++)
+			{
+				int child = trie[state * classCount + charClass];
+				int fallback = transitions[failures[state] * classCount + charClass];
+
+				if (child == 0)
+				{
+					transitions[state * classCount + charClass] = fallback;
+				}
+				else
+				{
+					transitions[state * classCount + charClass] = child;
+					failures[child] = fallback;
+					queue[tail++] = child;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find every dialog line in the text and, for order lines, the recipient and order spans
+	 * @return true if any line was found
+	 */
+	public boolean classify(CharSequence text, DialogMatch match)
+	{
+		match.reset(text);
+
+		int state = 0;
+		int length = text.length();
+		int i = 0;
+
+		while (i < length)
+		{
+			char c = text.charAt(i);
+
+			if (c == '<' && isLineBreakAt(text, i))
+			{
+				c = ' ';
+				i += LINE_BREAK.length();
+			}
+			else
+			{
+				i++;
+			}
+
+			state = transitions[state * classCount + (c < charClasses.length ? charClasses[c] : 0)];
+
+			if (outputs[state] != 0)
+			{
+				reportPhrases(text, outputs[state], i, match);
+			}
+		}
+
+		return match.hasAnyLine();
+	}
+
+	private void reportPhrases(CharSequence text, int phrases, int end, DialogMatch match)
+	{
+		while (phrases != 0)
+		{
+			int phrase = Integer.numberOfTrailingZeros(phrases);
+			phrases &= phrases - 1;
+
+			DialogLine line = phraseLines[phrase];
+
+			if (match.hasLine(line))
+			{
+				continue;
+			}
+
+			if (line.isOrderLine())
+			{
+				// The recipient is the run of name characters before the phrase, the order the run of words after it
+
+				int phraseStart = retreat(text, end, phraseLengths[phrase]);
+				int recipientStart = phraseStart;
+
+				while (recipientStart > 0)
+				{
+					if (isLineBreakBefore(text, recipientStart))
+					{
+						recipientStart -= LINE_BREAK.length();
+					}
+					else if (isRecipientChar(text.charAt(recipientStart - 1)))
+					{
+						recipientStart--;
+					}
+					else
+					{
+						break;
+					}
+				}
+
+				int orderEnd = end;
+
+				while (orderEnd < text.length())
+				{
+					if (isLineBreakAt(text, orderEnd))
+					{
+						orderEnd += LINE_BREAK.length();
+					}
+					else if (isOrderChar(text.charAt(orderEnd)))
+					{
+						orderEnd++;
+					}
+					else
+					{
+						break;
+					}
+				}
+
+				if (recipientStart == phraseStart || orderEnd == end)
+				{
+					continue;
+				}
+
+				match.setSpans(recipientStart, phraseStart, end, orderEnd);
+			}
+
+			match.addLine(line);
+		}
+	}
+
+	/**
+	 * Walk back a number of characters from a raw offset, counting each line break as one character
+	 */
+	private static int retreat(CharSequence text, int end, int count)
+	{
+		while (count-- > 0)
+		{
+			end -= isLineBreakBefore(text, end) ? LINE_BREAK.length() : 1;
+		}
+		return end;
+	}
+
+	/**
+	 * @return the span with line breaks replaced by spaces
+	 */
+	static String spanToString(CharSequence text, int start, int end)
+	{
+		if (text == null || start < 0)
+		{
+			return null;
+		}
+
+		StringBuilder sb = new StringBuilder(end - start);
+
+		for (int i = start; i < end; )
+		{
+			if (isLineBreakAt(text, i))
+			{
+				sb.append(' ');
+				i += LINE_BREAK.length();
+			}
+			else
+			{
+				sb.append(text.charAt(i++));
+			}
+		}
+
+		return sb.toString();
+	}
+
+	static boolean isLineBreakAt(CharSequence text, int index)
+	{
+		if (index + LINE_BREAK.length() > text.length())
+		{
+			return false;
+		}
+
+		for (int i = 0; i < LINE_BREAK.length(); i++)
+		{
+			if (text.charAt(index + i) != LINE_BREAK.charAt(i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static boolean isLineBreakBefore(CharSequence text, int end)
+	{
+		return end >= LINE_BREAK.length() && text.charAt(end - 1) == '>' && isLineBreakAt(text, end - LINE_BREAK.length());
+	}
+
+	// Equivalent to [\w .]
+
+	private static boolean isRecipientChar(char c)
+	{
+		return isOrderChar(c) || c == '.';
+	}
+
+	// Equivalent to [\w ]
+
+	private static boolean isOrderChar(char c)
+	{
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == ' ';
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import lombok.Getter;
+
+/**
+ * Result of classifying a dialog. A single instance is reused for every dialog, so the spans are
+ * offsets into the raw widget text rather than substrings
+ */
+public class DialogMatch
+{
+	@Getter
+	private CharSequence text;
+
+	// Bitmask of DialogLine ordinals
+
+	private int lines;
+
+	@Getter
+	private int recipientStart, recipientEnd, orderStart, orderEnd;
+
+	void reset(CharSequence text)
+	{
+		this.text = text;
+		lines = 0;
+		recipientStart = recipientEnd = orderStart = orderEnd = -1;
+	}
+
+	void addLine(DialogLine line)
+	{
+		lines |= 1 << line.ordinal();
+	}
+
+	void setSpans(int recipientStart, int recipientEnd, int orderStart, int orderEnd)
+	{
+		this.recipientStart = recipientStart;
+		this.recipientEnd = recipientEnd;
+		this.orderStart = orderStart;
+		this.orderEnd = orderEnd;
+	}
+
+	public boolean hasLine(DialogLine line)
+	{
+		return (lines & (1 << line.ordinal())) != 0;
+	}
+
+	public boolean hasAnyLine()
+	{
+		return lines != 0;
+	}
+
+	/**
+	 * @return the CatalogNames code of the recipient's printed name, looked up without copying it
+	 */
+	public int lookupRecipientName()
+	{
+		return CatalogNames.lookup(text, recipientStart, recipientEnd);
+	}
+
+	/**
+	 * @return the CatalogNames code of the order's name, looked up without copying it
+	 */
+	public int lookupOrderName()
+	{
+		return CatalogNames.lookup(text, orderStart, orderEnd);
+	}
+
+	public String getRecipientName()
+	{
+		return DialogClassifier.spanToString(text, recipientStart, recipientEnd);
+	}
+
+	public String getOrderName()
+	{
+		return DialogClassifier.spanToString(text, orderStart, orderEnd);
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import javax.inject.Inject;
+import net.runelite.api.Client;
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetID;
+import net.runelite.api.widgets.WidgetInfo;
+
+/**
+ * Tracks the NPC dialog box so that its text is only read while a dialog is open, and only handed
+ * back to the plugin when it differs from the last text that was seen
+ */
+public class DialogWatcher
+{
+	private static final String GIANNE_JNR_NAME = "Gianne jnr.";
+
+	private final Client client;
+
+	// Set when the NPC dialog interface loads, cleared once it is no longer on screen
+
+	private boolean armed = false;
+
+	// Fingerprint of the last dialog we handed out
+
+	private String lastDialogText;
+
+	@Inject
+	public DialogWatcher(Client client)
+	{
+		this.client = client;
+	}
+
+	public void onWidgetLoaded(int groupId)
+	{
+		if (groupId == WidgetID.DIALOG_NPC_GROUP_ID)
+		{
+			arm();
+		}
+	}
+
+	/**
+	 * Check the dialog box on the next poll, e.g. when the plugin starts while a dialog may already be open
+	 */
+	public void arm()
+	{
+		armed = true;
+	}
+
+	public void reset()
+	{
+		armed = false;
+		lastDialogText = null;
+	}
+
+	/**
+	 * @return the raw text of a Gianne jnr. dialog if it has changed since the last poll, otherwise null
+	 */
+	public String poll()
+	{
+		if (!armed)
+		{
+			return null;
+		}
+
+		Widget nameWidget = client.getWidget(WidgetInfo.DIALOG_NPC_NAME);
+		Widget textWidget = client.getWidget(WidgetInfo.DIALOG_NPC_TEXT);
+
+		if (nameWidget == null || textWidget == null)
+		{
+			// Dialog has been closed, stay idle until it is loaded again
+
+			reset();
+			return null;
+		}
+
+		String dialog = textWidget.getText();
+
+		if (dialog == null || dialog.equals(lastDialogText))
+		{
+			return null;
+		}
+
+		lastDialogText = dialog;
+
+		if (!GIANNE_JNR_NAME.equals(nameWidget.getText()))
+		{
+			return null;
+		}
+
+		return dialog;
+	}
+}
@@ -63,6 +63,16 @@ public interface GnomeRestaurantConfig extends Config
 		return true;
 	}
 
+	@ConfigItem(
+		keyName = "orderWarnings",
+		name = "Order Warnings",
+		description = "Comma separated seconds left on the order at which to send a chat warning, empty for none"
+	)
+	default String orderWarnings()
+	{
+		return "60";
+	}
+
 	@ConfigItem(
 		keyName = "showHintArrow",
 		name = "Show Hint Arrow",
@@ -72,4 +82,24 @@ public interface GnomeRestaurantConfig extends Config
 	{
 		return true;
 	}
+
+	@ConfigItem(
+		keyName = "showSessionStats",
+		name = "Show Session Stats",
+		description = "Configures whether to show delivery rates and stage times for the session in the overlay window"
+	)
+	default boolean showSessionStats()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "saveDeliveryHistory",
+		name = "Save Delivery History",
+		description = "Configures whether to save every delivery to a history file in the RuneLite directory"
+	)
+	default boolean saveDeliveryHistory()
+	{
+		return true;
+	}
 }
@@ -31,29 +31,31 @@ import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.util.Hashtable;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import javax.inject.Inject;
 import net.runelite.api.MenuAction;
 import net.runelite.client.ui.overlay.OverlayMenuEntry;
 import net.runelite.client.ui.overlay.OverlayPanel;
 import net.runelite.client.ui.overlay.components.ComponentConstants;
+import net.runelite.client.ui.overlay.components.LayoutableRenderableEntity;
 import net.runelite.client.ui.overlay.components.LineComponent;
 import net.runelite.client.ui.overlay.components.TitleComponent;
 
 public class GnomeRestaurantOverlay extends OverlayPanel
 {
-	private final Hashtable<Integer, OverlayEntry> currentStageOverlayTable, futureItemsOverlayTable;
 	private final GnomeRestaurantPlugin plugin;
 
+	// Components built for the last rendered snapshot, reused until the plugin publishes a new one
+
+	private final List<LayoutableRenderableEntity> components = new ArrayList<>();
+	private OverlaySnapshot renderedSnapshot;
+
 	@Inject
-	protected GnomeRestaurantOverlay(GnomeRestaurantPlugin plugin, Hashtable<Integer, OverlayEntry> currentStageOverlayTable,
-									 Hashtable<Integer, OverlayEntry> futureItemsOverlayTable)
+	protected GnomeRestaurantOverlay(GnomeRestaurantPlugin plugin)
 	{
 		super(plugin);
 		this.plugin = plugin;
-		this.currentStageOverlayTable = currentStageOverlayTable;
-		this.futureItemsOverlayTable = futureItemsOverlayTable;
 		panelComponent.setBorder(new Rectangle());
 		panelComponent.setGap(new Point(0, ComponentConstants.STANDARD_BORDER / 2));
 		getMenuEntries().add(new OverlayMenuEntry(MenuAction.RUNELITE_OVERLAY, GnomeRestaurantPlugin.OVERLAY_MENU_ENTRY_TEXT, "Gnome Restaurant Overlay"));
@@ -62,37 +64,84 @@ public class GnomeRestaurantOverlay extends OverlayPanel
 	@Override
 	public Dimension render(Graphics2D graphics)
 	{
+		long start = System.nanoTime();
+
+		try
+		{
+			// Read the published snapshot once so the whole frame shows the same state
+
+			OverlaySnapshot snapshot = plugin.getOverlaySnapshot();
+
+			if (snapshot == null)
+			{
+				return null;
+			}
+
+			if (snapshot != renderedSnapshot)
+			{
+				rebuildComponents(snapshot);
+			}
+
+			// The panel clears its children after every render
+
+			for (int i = 0; i < components.size(); i++)
+			{
+				panelComponent.getChildren().add(components.get(i));
+			}
+
+			return super.render(graphics);
+		}
+		finally
+		{
+			plugin.getHandlerStats().record(TimedHandler.OVERLAY_RENDER, start);
+		}
+	}
+
+	private void rebuildComponents(OverlaySnapshot snapshot)
+	{
+		renderedSnapshot = snapshot;
+		components.clear();
 
 		String sb = "Step " +
-			(plugin.getCurrentStageNodeIndex() + 1) +
+			(snapshot.getStageNodeIndex() + 1) +
 			": " +
-			plugin.getCurrentStageDirections();
+			snapshot.getStageDirections();
 		LineComponent stageRow = LineComponent.builder().left(sb).build();
-		panelComponent.getChildren().add(stageRow);
+		components.add(stageRow);
 
-		renderOverlayTable(currentStageOverlayTable, "Current Items");
+		buildOverlayTable(snapshot.getCurrentItems(), "Current Items");
 
-		if (!futureItemsOverlayTable.isEmpty())
+		if (!snapshot.getFutureItems().isEmpty())
 		{
-			renderOverlayTable(futureItemsOverlayTable, "Later Items");
+			buildOverlayTable(snapshot.getFutureItems(), "Later Items");
 		}
 
-		return super.render(graphics);
+		if (!snapshot.getSessionStatLines().isEmpty())
+		{
+			components.add(TitleComponent.builder().text("Session").build());
+
+			for (SessionStatLine line : snapshot.getSessionStatLines())
+			{
+				components.add(LineComponent.builder().left(line.getLabel()).right(line.getValue()).build());
+			}
+		}
 	}
 
-	private void renderOverlayTable(Hashtable<Integer, OverlayEntry> overlayTable, String title)
+	private void buildOverlayTable(List<OverlayEntry> overlayEntries, String title)
 	{
 		TitleComponent titleComponent = TitleComponent.builder().text(title).build();
-		panelComponent.getChildren().add(titleComponent);
+		components.add(titleComponent);
 
-		for (Map.Entry<Integer, OverlayEntry> ingredient : overlayTable.entrySet())
+		for (OverlayEntry ingredient : overlayEntries)
 		{
+			// Yellow when the rest is worn or in the bank, red when some has to be made or bought
+
 			Color ingredientColor;
-			if (ingredient.getValue().getInventoryCount() >= ingredient.getValue().getRequiredCount())
+			if (ingredient.getInventoryCount() >= ingredient.getRequiredCount())
 			{
 				ingredientColor = Color.GREEN;
 			}
-			else if (ingredient.getValue().getInventoryCount() == 0)
+			else if (ingredient.getMissingCount() > 0)
 			{
 				ingredientColor = Color.RED;
 			}
@@ -102,12 +151,42 @@ public class GnomeRestaurantOverlay extends OverlayPanel
 			}
 
 			LineComponent ingredientRow = LineComponent.builder()
-				.left(ingredient.getValue().getItemName())
+				.left(ingredient.getItemName())
 				.leftColor(ingredientColor)
-				.right(ingredient.getValue().getInventoryCount() + "/" + ingredient.getValue().getRequiredCount())
+				.right(formatCounts(ingredient))
 				.rightColor(ingredientColor)
 				.build();
-			panelComponent.getChildren().add(ingredientRow);
+			components.add(ingredientRow);
+		}
+	}
+
+	/**
+	 * Inventory and required counts, followed by what is worn, what the bank holds and what is missing when the
+	 * inventory is short
+	 */
+	private static String formatCounts(OverlayEntry ingredient)
+	{
+		String counts = ingredient.getInventoryCount() + "/" + ingredient.getRequiredCount();
+
+		if (ingredient.getInventoryCount() >= ingredient.getRequiredCount())
+		{
+			return counts;
+		}
+
+		if (ingredient.getEquipmentCount() > 0)
+		{
+			counts += " worn " + ingredient.getEquipmentCount();
+		}
+
+		if (ingredient.getBankCount() > 0)
+		{
+			counts += " bank " + ingredient.getBankCount();
+		}
+
+		if (ingredient.getMissingCount() > 0)
+		{
+			counts += " need " + ingredient.getMissingCount();
 		}
+		return counts;
 	}
 }
@@ -27,51 +27,48 @@
 package io.github.mmagicala.gnomeRestaurant;
 
 import com.google.inject.Provides;
-import io.github.mmagicala.gnomeRestaurant.itemOrder.BakedOrder;
-import io.github.mmagicala.gnomeRestaurant.itemOrder.BakedToppedOrder;
-import io.github.mmagicala.gnomeRestaurant.itemOrder.HeatedCocktailOrder;
-import io.github.mmagicala.gnomeRestaurant.itemOrder.CocktailOrder;
 import io.github.mmagicala.gnomeRestaurant.itemOrder.ItemOrder;
+import java.io.File;
+import java.io.IOException;
 import java.security.InvalidParameterException;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Hashtable;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.TreeSet;
 import javax.inject.Inject;
 import javax.inject.Named;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
+import net.runelite.api.GameState;
 import net.runelite.api.InventoryID;
 import net.runelite.api.ItemContainer;
 import net.runelite.api.ItemID;
 import net.runelite.api.MenuAction;
-import net.runelite.api.NPC;
 import net.runelite.api.events.CommandExecuted;
+import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.ItemContainerChanged;
-import net.runelite.api.events.NpcDespawned;
-import net.runelite.api.events.NpcSpawned;
-import net.runelite.api.events.VarbitChanged;
-import net.runelite.api.widgets.WidgetInfo;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.chat.ChatMessageManager;
 import net.runelite.client.chat.QueuedMessage;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.events.OverlayMenuClicked;
-import net.runelite.client.game.ItemManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayManager;
 import net.runelite.client.ui.overlay.infobox.InfoBoxManager;
-import net.runelite.client.ui.overlay.infobox.Timer;
 
 @Slf4j
 @PluginDescriptor(
@@ -79,69 +76,40 @@ import net.runelite.client.ui.overlay.infobox.Timer;
 )
 public class GnomeRestaurantPlugin extends Plugin
 {
-	private static final Pattern DELIVERY_START_PATTERN =
-		Pattern.compile("([\\w .]+) wants (?:some|a) ([\\w ]+)");
+	private static final DialogClassifier DIALOG_CLASSIFIER = new DialogClassifier(DialogLine.values());
 
-	private static final String EASY_DELIVERY_DELAY_TEXT = "Fine, your loss. If you want another easy job one come back in five minutes and maybe I'll be able to find you one.";
-	private static final String HARD_DELIVERY_DELAY_TEXT = "Fine, your loss. I may have an easier job for you, since you chickened out of that one, If you want another hard one come back in five minutes and maybe I'll be able to find you a something.";
+	// Set while a delivery is in progress
+
+	static final int DELIVERY_VARBIT_ID = 2478;
+
+	// Time allowed for each order before the reward drops
+
+	static final int EASY_ORDER_SECONDS = 360;
+	static final int HARD_ORDER_SECONDS = 660;
+
+	// Wait before another order can be placed after turning one down
+
+	static final int DELAY_SECONDS = 300;
+
+	// Map regions where Gianne jnr. can be talked to, sorted. The Grand Tree lies within a single region.
+
+	private static final int[] DIALOG_REGION_IDS = {9782};
+
+	private static final File PLUGIN_DIRECTORY = new File(RuneLite.RUNELITE_DIR, "gnome-restaurant");
+	private static final File SESSION_DIRECTORY = new File(PLUGIN_DIRECTORY, "sessions");
+	private static final File HISTORY_FILE = new File(PLUGIN_DIRECTORY, "history.dat");
 
 	// NPC printed and actual names
 
-	private static final HashMap<String, String> easyOrderNPCs = new HashMap<String, String>()
-	{
-		{
-			put("Burkor", null);
-			put("Brimstall", null);
-			put("Captain Errdo", null);
-			put("Coach", "Gnome Coach");
-			put("Dalila", null);
-			put("Damwin", null);
-			put("Eebel", null);
-			put("Ermin", null);
-			put("Femi", null);
-			put("Froono", null);
-			put("Guard Vemmeldo", null);
-			put("Gulluck", null);
-			put("His Royal Highness King Narnode", "King Narnode Shareen");
-			put("Meegle", null);
-			put("Perrdur", null);
-			put("Rometti", null);
-			put("Sarble", null);
-			put("Trainer Nacklepen", null);
-			put("Wurbel", null);
-			put("Heckel Funch", null);
-		}
-	};
-
-	private static final HashMap<String, String> hardOrderNPCs = new HashMap<String, String>()
-	{
-		{
-			put("Ambassador Ferrnook", null);
-			put("Ambassador Gimblewap", null);
-			put("Ambassador Spanfipple", null);
-			put("Brambickle", null);
-			put("Captain Bleemadge", null);
-			put("Captain Daerkin", null);
-			put("Captain Dalbur", null);
-			put("Captain Klemfoodle", null);
-			put("Captain Ninto", null);
-			put("G.L.O Caranock", null);
-			put("Garkor", null);
-			put("Gnormadium Avlafrim", null);
-			put("Hazelmere", null);
-			put("King Bolren", null);
-			put("Lieutenant Schepbur", null);
-			put("Penwie", null);
-			put("Professor Imblewyn", null);
-			put("Professor Manglethorp", null);
-			put("Professor Onglewip", null);
-			put("Wingstone", null);
-		}
-	};
+	static final Map<String, String> easyOrderNPCs = Collections.unmodifiableMap(RecipeCatalog.createEasyRecipients());
+	static final Map<String, String> hardOrderNPCs = Collections.unmodifiableMap(RecipeCatalog.createHardRecipients());
 
 	@Inject
 	private Client client;
 
+	@Inject
+	private ClientThread clientThread;
+
 	@Inject
 	private GnomeRestaurantConfig config;
 
@@ -152,14 +120,68 @@ public class GnomeRestaurantPlugin extends Plugin
 	private OverlayManager overlayManager;
 
 	@Inject
-	private ItemManager itemManager;
+	private ChatMessageManager chatMessageManager;
+
+	@Inject
+	private DialogWatcher dialogWatcher;
 
 	@Inject
-	private ChatMessageManager chatMessageManager;
+	private ItemAssetCache itemAssetCache;
+
+	@Inject
+	private VarbitWatcher varbitWatcher;
+
+	@Inject
+	private SessionRecorder sessionRecorder;
+
+	@Inject
+	private DeliveryHistory deliveryHistory;
+
+	@Inject
+	private EventBus eventBus;
+
+	private final DialogMatch dialogMatch = new DialogMatch();
+
+	// Dialogs are only read while a dialog region is loaded, checked whenever a new scene loads
+
+	private boolean inDialogRegion;
+
+	// Client thread timings, shown with ::gnome stats
+
+	@Getter
+	private final HandlerStats handlerStats = new HandlerStats();
+
+	// Delivery rates and stage times, kept for as long as the plugin is loaded
+
+	@Getter
+	private final SessionStats sessionStats = new SessionStats();
+	private List<SessionStatLine> sessionStatLines = Collections.emptyList();
+	private int sessionStatLinesVersion = -1;
+
+	// The delivery rate depends on the time, so the rows are rebuilt once a minute even when nothing changed
+
+	private static final int SESSION_STATS_REFRESH_TICKS = 100;
+	private final TickTimeout sessionStatsRefresh = new TickTimeout(this::refreshSessionStats);
+
+	// Written to the delivery history when the order ends, null for test deliveries
+
+	private DeliveryRecord deliveryRecord;
+
+	// Order expiry, the delay cooldown and the order warnings all run off the game tick
+
+	private final TickWheel tickWheel = new TickWheel();
+	private final TickTimeout orderExpiry = new TickTimeout(this::removeOrderTimer);
+	private final TickTimeout delayExpiry = new TickTimeout(this::removeDelayTimer);
+	private final TickTimeout orderWarning = new TickTimeout(this::warnOrderTimeLeft);
+
+	// Ticks left at which to warn about the order, largest first
+
+	private int[] orderWarningTicks = new int[0];
 
 	// UI
 
-	private Timer orderTimer, delayTimer;
+	private final TickTimerInfoBox orderTimer = new TickTimerInfoBox(this, tickWheel, orderExpiry);
+	private final TickTimerInfoBox delayTimer = new TickTimerInfoBox(this, tickWheel, delayExpiry);
 	private Overlay overlay;
 
 	// Order status
@@ -171,707 +193,564 @@ public class GnomeRestaurantPlugin extends Plugin
 
 	private boolean isTrackingDelivery = false;
 
+	// Registered on the event bus from the tick an order is read until the delivery ends
+
+	private DeliveryTracker deliveryTracker;
+	private boolean isTrackerRegistered = false;
+
 	// Order data
 
-	private static final Map<String, ItemOrder> itemOrders = Collections.unmodifiableMap(new Hashtable<String, ItemOrder>()
-	{
-		{
-			// Gnomebowls
-
-			put("worm hole",
-				new BakedToppedOrder(
-					ItemOrderType.GNOMEBOWL,
-					ItemID.HALF_MADE_BOWL_9559,
-					ItemID.UNFINISHED_BOWL_9560,
-					ItemID.WORM_HOLE,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.KING_WORM, 4));
-							add(new CookingItem(ItemID.ONION, 2));
-							add(new CookingItem(ItemID.GNOME_SPICE, 1));
-							add(new CookingItem(ItemID.EQUA_LEAVES, 1, true));
-						}
-					}
-				)
-			);
-			put("vegetable ball", new BakedToppedOrder(
-					ItemOrderType.GNOMEBOWL,
-					ItemID.HALF_MADE_BOWL_9561,
-					ItemID.UNFINISHED_BOWL_9562,
-					ItemID.VEG_BALL,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.POTATO, 2));
-							add(new CookingItem(ItemID.ONION, 2));
-							add(new CookingItem(ItemID.GNOME_SPICE, 1));
-							add(new CookingItem(ItemID.EQUA_LEAVES, 1, true));
-						}
-					}
-				)
-			);
-			put("tangled toads legs", new BakedOrder(
-					ItemOrderType.GNOMEBOWL,
-					ItemID.HALF_MADE_BOWL,
-					ItemID.TANGLED_TOADS_LEGS,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.TOADS_LEGS, 4));
-							add(new CookingItem(ItemID.GNOME_SPICE, 2));
-							add(new CookingItem(ItemID.CHEESE, 1));
-							add(new CookingItem(ItemID.DWELLBERRIES, 1));
-							add(new CookingItem(ItemID.EQUA_LEAVES, 1));
-						}
-					}
-				)
-			);
-			put("chocolate bomb", new BakedToppedOrder(
-					ItemOrderType.GNOMEBOWL,
-					ItemID.HALF_MADE_BOWL_9563,
-					ItemID.UNFINISHED_BOWL_9564,
-					ItemID.CHOCOLATE_BOMB,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.CHOCOLATE_BAR, 4));
-							add(new CookingItem(ItemID.EQUA_LEAVES, 2));
-							add(new CookingItem(ItemID.CHOCOLATE_DUST, 1, true));
-							add(new CookingItem(ItemID.POT_OF_CREAM, 2, true));
-						}
-					}
-				)
-			);
-
-			// Battas
-
-			put("fruit batta", new BakedToppedOrder(
-					ItemOrderType.BATTA,
-					ItemID.HALF_MADE_BATTA,
-					ItemID.UNFINISHED_BATTA_9479,
-					ItemID.FRUIT_BATTA,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.EQUA_LEAVES, 4));
-							add(new CookingItem(ItemID.LIME_CHUNKS, 1));
-							add(new CookingItem(ItemID.ORANGE_CHUNKS, 1));
-							add(new CookingItem(ItemID.PINEAPPLE_CHUNKS, 1));
-							add(new CookingItem(ItemID.GNOME_SPICE, 1, true));
-						}
-					}
-				)
-			);
-			put("toad batta", new BakedOrder(
-					ItemOrderType.BATTA,
-					ItemID.HALF_MADE_BATTA_9482,
-					ItemID.TOAD_BATTA,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.EQUA_LEAVES, 4));
-							add(new CookingItem(ItemID.GNOME_SPICE, 1));
-							add(new CookingItem(ItemID.CHEESE, 1));
-							add(new CookingItem(ItemID.TOADS_LEGS, 1));
-						}
-					}
-				)
-			);
-			put("worm batta", new BakedToppedOrder(
-					ItemOrderType.BATTA,
-					ItemID.HALF_MADE_BATTA_9480,
-					ItemID.UNFINISHED_BATTA_9481,
-					ItemID.WORM_BATTA,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.KING_WORM, 1));
-							add(new CookingItem(ItemID.CHEESE, 1));
-							add(new CookingItem(ItemID.GNOME_SPICE, 1));
-							add(new CookingItem(ItemID.EQUA_LEAVES, 1, true));
-						}
-					}
-				)
-			);
-			put("vegetable batta", new BakedToppedOrder(
-					ItemOrderType.BATTA,
-					ItemID.HALF_MADE_BATTA_9485,
-					ItemID.UNFINISHED_BATTA_9486,
-					ItemID.VEGETABLE_BATTA,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.TOMATO, 2));
-							add(new CookingItem(ItemID.DWELLBERRIES, 1));
-							add(new CookingItem(ItemID.ONION, 1));
-							add(new CookingItem(ItemID.CHEESE, 1));
-							add(new CookingItem(ItemID.CABBAGE, 1));
-							add(new CookingItem(ItemID.EQUA_LEAVES, 1, true));
-						}
-					}
-				)
-			);
-			put("cheese and tomato batta", new BakedToppedOrder(
-					ItemOrderType.BATTA,
-					ItemID.HALF_MADE_BATTA_9483,
-					ItemID.UNFINISHED_BATTA_9484,
-					ItemID.CHEESETOM_BATTA,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.CHEESE, 1));
-							add(new CookingItem(ItemID.TOMATO, 1));
-							add(new CookingItem(ItemID.EQUA_LEAVES, 1, true));
-						}
-					}
-				)
-			);
-
-			// Crunchies
-
-			put("choc chip crunchies", new BakedToppedOrder(
-					ItemOrderType.CRUNCHIES,
-					ItemID.HALF_MADE_CRUNCHY,
-					ItemID.UNFINISHED_CRUNCHY_9578,
-					ItemID.CHOCCHIP_CRUNCHIES,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.CHOCOLATE_BAR, 2));
-							add(new CookingItem(ItemID.GNOME_SPICE, 1));
-							add(new CookingItem(ItemID.CHOCOLATE_DUST, 1, true));
-						}
-					}
-				)
-			);
-			put("spicy crunchies", new BakedToppedOrder(
-					ItemOrderType.CRUNCHIES,
-					ItemID.HALF_MADE_CRUNCHY_9579,
-					ItemID.UNFINISHED_CRUNCHY_9580,
-					ItemID.SPICY_CRUNCHIES,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.EQUA_LEAVES, 2));
-							add(new CookingItem(ItemID.GNOME_SPICE, 1));
-							add(new CookingItem(ItemID.GNOME_SPICE, 1, true));
-						}
-					}
-				)
-			);
-			put("toad crunchies", new BakedToppedOrder(
-					ItemOrderType.CRUNCHIES,
-					ItemID.HALF_MADE_CRUNCHY_9581,
-					ItemID.UNFINISHED_CRUNCHY_9582,
-					ItemID.TOAD_CRUNCHIES,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.TOADS_LEGS, 2));
-							add(new CookingItem(ItemID.GNOME_SPICE, 1));
-							add(new CookingItem(ItemID.EQUA_LEAVES, 1, true));
-						}
-					}
-				)
-			);
-			put("worm crunchies", new BakedToppedOrder(
-					ItemOrderType.CRUNCHIES,
-					ItemID.HALF_MADE_CRUNCHY_9583,
-					ItemID.UNFINISHED_CRUNCHY_9584,
-					ItemID.WORM_CRUNCHIES,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.KING_WORM, 2));
-							add(new CookingItem(ItemID.GNOME_SPICE, 1));
-							add(new CookingItem(ItemID.EQUA_LEAVES, 1));
-							add(new CookingItem(ItemID.GNOME_SPICE, 1, true));
-						}
-					}
-				)
-			);
-
-			// Gnome cocktails
-
-			put("fruit blast", new CocktailOrder(
-					ItemID.MIXED_BLAST,
-					ItemID.FRUIT_BLAST,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.PINEAPPLE, 1));
-							add(new CookingItem(ItemID.LEMON, 1));
-							add(new CookingItem(ItemID.ORANGE, 1));
-							add(new CookingItem(ItemID.LEMON_SLICES, 1, true));
-						}
-					}
-				)
-			);
-			put("pineapple punch", new CocktailOrder(
-					ItemID.MIXED_PUNCH,
-					ItemID.PINEAPPLE_PUNCH,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.PINEAPPLE, 2));
-							add(new CookingItem(ItemID.LEMON, 1));
-							add(new CookingItem(ItemID.ORANGE, 1));
-							add(new CookingItem(ItemID.LIME_CHUNKS, 1, true));
-							add(new CookingItem(ItemID.PINEAPPLE_CHUNKS, 1, true));
-							add(new CookingItem(ItemID.ORANGE_SLICES, 1, true));
-						}
-					}
-				)
-			);
-			put("wizard blizzard", new CocktailOrder(
-				ItemID.MIXED_BLIZZARD,
-				ItemID.WIZARD_BLIZZARD,
-				new ArrayList<CookingItem>()
-				{
-					{
-						add(new CookingItem(ItemID.VODKA, 2));
-						add(new CookingItem(ItemID.GIN, 1));
-						add(new CookingItem(ItemID.LIME, 1));
-						add(new CookingItem(ItemID.LEMON, 1));
-						add(new CookingItem(ItemID.ORANGE, 1));
-						add(new CookingItem(ItemID.PINEAPPLE_CHUNKS, 1, true));
-						add(new CookingItem(ItemID.LIME_SLICES, 1, true));
-					}
-				}));
-			put("short green guy", new CocktailOrder(
-					ItemID.MIXED_SGG,
-					ItemID.SHORT_GREEN_GUY,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.VODKA, 1));
-							add(new CookingItem(ItemID.LIME, 3));
-							add(new CookingItem(ItemID.LIME_SLICES, 1, true));
-							add(new CookingItem(ItemID.EQUA_LEAVES, 1, true));
-						}
-					}
-				)
-			);
-			put("drunk dragon", new HeatedCocktailOrder(
-					HeatTiming.AFTER_ADDING_INGREDS,
-					ItemID.MIXED_DRAGON,
-					ItemID.MIXED_DRAGON_9575,
-					ItemID.MIXED_DRAGON_9576,
-					ItemID.DRUNK_DRAGON,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.VODKA, 1));
-							add(new CookingItem(ItemID.GIN, 1));
-							add(new CookingItem(ItemID.DWELLBERRIES, 1));
-							add(new CookingItem(ItemID.PINEAPPLE_CHUNKS, 1, true));
-							add(new CookingItem(ItemID.POT_OF_CREAM, 1, true));
-						}
-					}
-				)
-			);
-			put("choc saturday", new HeatedCocktailOrder(
-					HeatTiming.BEFORE_ADDING_INGREDS,
-					ItemID.MIXED_SATURDAY,
-					ItemID.MIXED_SATURDAY_9572,
-					ItemID.MIXED_SATURDAY_9573,
-					ItemID.CHOC_SATURDAY,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.WHISKY, 1));
-							add(new CookingItem(ItemID.CHOCOLATE_BAR, 1));
-							add(new CookingItem(ItemID.EQUA_LEAVES, 1));
-							add(new CookingItem(ItemID.BUCKET_OF_MILK, 1));
-							add(new CookingItem(ItemID.CHOCOLATE_DUST, 1, true));
-							add(new CookingItem(ItemID.POT_OF_CREAM, 1, true));
-						}
-					}
-				)
-			);
-			put("blurberry special", new CocktailOrder(
-					ItemID.MIXED_SPECIAL,
-					ItemID.BLURBERRY_SPECIAL,
-					new ArrayList<CookingItem>()
-					{
-						{
-							add(new CookingItem(ItemID.VODKA, 1));
-							add(new CookingItem(ItemID.BRANDY, 1));
-							add(new CookingItem(ItemID.GIN, 1));
-							add(new CookingItem(ItemID.LEMON, 2));
-							add(new CookingItem(ItemID.ORANGE, 1));
-							add(new CookingItem(ItemID.LEMON_CHUNKS, 1, true));
-							add(new CookingItem(ItemID.ORANGE_CHUNKS, 1, true));
-							add(new CookingItem(ItemID.EQUA_LEAVES, 1, true));
-							add(new CookingItem(ItemID.LIME_SLICES, 1, true));
-						}
-					}
-				)
-			);
-		}
-	});
+	static final Map<String, ItemOrder> itemOrders = Collections.unmodifiableMap(RecipeCatalog.createItemOrders());
 
 	// Order information
 
 	private ItemOrder itemOrder;
 	private String recipientRealName;
 
-	// Stage nodes
+	// Stage plans, compiled once for every order, by name and by catalog ordinal
 
-	private final ArrayList<StageNode> stageNodes = new ArrayList<>();
+	private Map<String, StagePlan> stagePlans;
+	private StagePlan[] orderStagePlans;
+	private StagePlan stagePlan;
 
-	@Getter
 	private int currentStageNodeIndex;
 
-	public String getCurrentStageDirections()
-	{
-		return stageNodes.get(currentStageNodeIndex).getStage().directions;
-	}
+	private final StageInference stageInference = new StageInference();
+
+	// Inventory counts, refreshed once per inventory change
+
+	private final ContainerSnapshots containerSnapshots = new ContainerSnapshots();
+	private final InventorySnapshot inventorySnapshot = containerSnapshots.getInventory();
 
-	// Overlay tables
+	// Dense index of the recipe items, shared by every stage plan
 
-	private final Hashtable<Integer, OverlayEntry> currentItemsOverlayTable = new Hashtable<>();
-	private final Hashtable<Integer, OverlayEntry> futureItemsOverlayTable = new Hashtable<>();
+	private ItemIndex itemIndex;
+
+	// Overlay state, replaced as a whole on the client thread and read by the overlay without locking
+
+	@Getter
+	private volatile OverlaySnapshot overlaySnapshot;
 
 	// Overlay strings
 
 	public static final String OVERLAY_MENU_ENTRY_TEXT = "Reset Stage";
 
 	@Override
-	protected void shutDown() throws Exception
+	protected void startUp() throws Exception
 	{
-		reset();
-	}
+		stagePlans = StagePlan.compileAll(itemOrders);
+		orderStagePlans = new StagePlan[RecipeTables.ORDER_NAMES.length];
 
-	private void reset()
-	{
-		removeOrderTimer();
-		removeDelayTimer();
-		removeOverlay();
-		client.clearHintArrow();
-
-		isTrackingDelivery = false;
-	}
-
-	@Subscribe
-	public void onGameTick(GameTick event)
-	{
-		if (client.getWidget(WidgetInfo.DIALOG_NPC_NAME) != null
-			&& client.getWidget(WidgetInfo.DIALOG_NPC_NAME).getText().equals("Gianne jnr.")
-		)
+		for (int order = 0; order < orderStagePlans.length; order++)
 		{
-			String dialog = client.getWidget(WidgetInfo.DIALOG_NPC_TEXT).getText();
-
-			// Replace line breaks with spaces
+			orderStagePlans[order] = stagePlans.get(RecipeCatalog.getOrderName(order));
+		}
 
-			dialog = dialog.replace("<br>", " ");
+		itemIndex = orderStagePlans[0].getItemIndex();
+		deliveryTracker = new DeliveryTracker(this, client, config, varbitWatcher);
+		itemAssetCache.prewarm(getRecipeItemIds());
+		orderWarningTicks = parseOrderWarnings(config.orderWarnings());
+		delayTimer.setTooltip("Cannot place an order at this time");
 
-			Matcher deliveryStartMatcher = DELIVERY_START_PATTERN.matcher(dialog);
+		if (config.saveDeliveryHistory())
+		{
+			deliveryHistory.open(HISTORY_FILE);
+		}
 
-			if (isDeliveryForTesting)
-			{
-				resetPluginAndTest("Starting real delivery");
-			}
+		// A dialog may already be open when the plugin is turned on, and the bank may have been opened already.
+		// The containers and snapshots are only touched on the client thread.
 
-			if (deliveryStartMatcher.find() && !isTrackingDelivery)
+		clientThread.invoke(() ->
+		{
+			if (client.getGameState() == GameState.LOGGED_IN)
 			{
-				startTrackingDelivery(deliveryStartMatcher.group(1), deliveryStartMatcher.group(2));
+				updateDialogRegion();
+				containerSnapshots.getEquipment().update(client.getItemContainer(InventoryID.EQUIPMENT));
+				containerSnapshots.getBank().update(client.getItemContainer(InventoryID.BANK));
 			}
 
-			// Show delay timer if player refuses the order
-
-			if (config.showDelayTimer() && delayTimer == null && (dialog.contains(EASY_DELIVERY_DELAY_TEXT) || dialog.contains(HARD_DELIVERY_DELAY_TEXT)))
+			if (inDialogRegion)
 			{
-				delayTimer = new Timer(5, ChronoUnit.MINUTES, itemManager.getImage(ItemID.ALUFT_ALOFT_BOX), this);
-				delayTimer.setTooltip("Cannot place an order at this time");
-				infoBoxManager.addInfoBox(delayTimer);
+				dialogWatcher.arm();
 			}
-		}
+		});
 	}
 
-	private void startTrackingDelivery(String printedRecipientName, String orderName)
+	@Override
+	protected void shutDown() throws Exception
 	{
-		// Players can change their order upon earning a full reward token
-
 		reset();
+		dialogWatcher.reset();
+		itemAssetCache.clear();
+		deliveryHistory.close();
 
-		itemOrder = itemOrders.get(orderName);
-
-		if (itemOrder == null)
+		if (sessionRecorder.isRecording())
 		{
-			throw new InvalidParameterException("No order found with the name " + orderName);
+			eventBus.unregister(sessionRecorder);
+			sessionRecorder.stop();
 		}
+	}
 
-		boolean isHardOrder;
+	/**
+	 * @return every item that can be shown in the overlay or in an infobox
+	 */
+	private Set<Integer> getRecipeItemIds()
+	{
+		LinkedHashSet<Integer> itemIds = new LinkedHashSet<>();
 
-		if (easyOrderNPCs.containsKey(printedRecipientName))
-		{
-			recipientRealName = easyOrderNPCs.get(printedRecipientName) == null ? printedRecipientName : easyOrderNPCs.get(printedRecipientName);
-			isHardOrder = false;
-		}
-		else if (hardOrderNPCs.containsKey(printedRecipientName))
+		for (ItemOrderType itemOrderType : ItemOrderType.values())
 		{
-			recipientRealName = hardOrderNPCs.get(printedRecipientName) == null ? printedRecipientName : hardOrderNPCs.get(printedRecipientName);
-			isHardOrder = true;
+			itemIds.add(itemOrderType.getMouldId());
+			itemIds.add(itemOrderType.getHalfBakedId());
+			itemIds.add(itemOrderType.getToolId());
 		}
-		else
+
+		for (StagePlan plan : stagePlans.values())
 		{
-			throw new InvalidParameterException("No recipient found with the name " + printedRecipientName);
+			itemIds.add(plan.getItemOrder().getItemId());
+
+			for (StageNode stageNode : plan.getStageNodes())
+			{
+				itemIds.add(stageNode.getProducedItemId());
+
+				for (CookingItem cookingItem : stageNode.getOtherRequiredItems())
+				{
+					itemIds.add(cookingItem.getItemId());
+				}
+			}
 		}
 
-		isTrackingDelivery = true;
+		// Cocktails have no mould and the first stage produces nothing
 
-		// Delete the delay timer if it is active (we can choose hard orders during a delay)
+		itemIds.remove(-1);
+		return itemIds;
+	}
 
+	void reset()
+	{
+		endOrder(false);
+		removeOrderTimer();
 		removeDelayTimer();
+		removeOverlay();
+		client.clearHintArrow();
 
-		if (config.showOverlay())
+		if (isTrackerRegistered)
 		{
-			// Build stage list
-
-			rebuildStageNodeList();
-			currentStageNodeIndex = 0;
-
-			// Determine initial stage, initialize overlay, and create overlay tables
+			eventBus.unregister(deliveryTracker);
+			isTrackerRegistered = false;
+		}
 
-			ItemContainer inventory = client.getItemContainer(InventoryID.INVENTORY);
-			assert inventory != null;
+		isTrackingDelivery = false;
+	}
 
-			overlay = new GnomeRestaurantOverlay(this, currentItemsOverlayTable, futureItemsOverlayTable);
-			overlayManager.add(overlay);
+	/**
+	 * Called by the delivery tracker when the delivery varbit is cleared on handing the order in
+	 */
+	void onDeliveryCompleted()
+	{
+		endOrder(true);
+		reset();
+	}
 
-			updateStage(inventory, true);
-		}
+	private void endOrder(boolean delivered)
+	{
+		sessionStats.endOrder(delivered, System.nanoTime());
 
-		if (config.showOrderTimer())
+		if (deliveryRecord != null)
 		{
-			int numSecondsLeft;
-
-			if (isHardOrder)
-			{
-				numSecondsLeft = 660;
-			}
-			else
-			{
-				numSecondsLeft = 360;
-			}
+			deliveryRecord.end(delivered, client.getTickCount());
+			deliveryHistory.append(deliveryRecord);
+			deliveryRecord = null;
+		}
+	}
 
-			orderTimer = new Timer(numSecondsLeft, ChronoUnit.SECONDS, itemManager.getImage(itemOrder.getItemId()), this);
+	@Subscribe
+	public void onGameStateChanged(GameStateChanged event)
+	{
+		// The loaded map regions only change when a new scene has loaded
 
-			String tooltipText = "Deliver " + orderName + " to " + recipientRealName;
-			orderTimer.setTooltip(tooltipText);
-			infoBoxManager.addInfoBox(orderTimer);
+		if (event.getGameState() == GameState.LOGGED_IN)
+		{
+			updateDialogRegion();
 		}
 
-		// Draw hint arrow if we can already identify the NPC
+		// Another account can log in next
 
-		if (config.showHintArrow())
+		else if (event.getGameState() == GameState.LOGIN_SCREEN)
 		{
-			markNPCFromCache();
+			containerSnapshots.getEquipment().update(null);
+			containerSnapshots.getBank().update(null);
 		}
 	}
 
-	private void markNPCFromCache()
+	/**
+	 * Keep the bank and equipment snapshots for the overlay, the inventory is followed by the delivery tracker
+	 */
+	@Subscribe
+	public void onItemContainerChanged(ItemContainerChanged event)
 	{
-		NPC[] npcs = client.getCachedNPCs();
+		InventorySnapshot containerSnapshot;
+
+		if (event.getContainerId() == InventoryID.BANK.getId())
+		{
+			containerSnapshot = containerSnapshots.getBank();
+		}
+		else if (event.getContainerId() == InventoryID.EQUIPMENT.getId())
+		{
+			containerSnapshot = containerSnapshots.getEquipment();
+		}
+		else
+		{
+			return;
+		}
 
-		for (NPC npc : npcs)
+		long start = System.nanoTime();
+
+		try
 		{
-			if (toggleMarkRecipient(npc, true))
+			containerSnapshot.update(event.getItemContainer());
+
+			if (overlay != null && isPlanItemChanged(containerSnapshot))
 			{
-				return;
+				overlaySnapshot = overlaySnapshot.withItemCounts(containerSnapshots, containerSnapshot);
 			}
 		}
+		finally
+		{
+			handlerStats.record(TimedHandler.ITEM_CONTAINER_CHANGED, start);
+		}
 	}
 
-	private boolean toggleMarkRecipient(NPC npc, boolean mark)
+	/**
+	 * @return true if the last update of the snapshot changed the count of an item used by the current plan
+	 */
+	private boolean isPlanItemChanged(InventorySnapshot containerSnapshot)
 	{
-		if (npc == null || npc.getName() == null)
+		for (int i = 0; i < containerSnapshot.getChangedItemCount(); i++)
 		{
-			return false;
-		}
+			int index = itemIndex.indexOf(containerSnapshot.getChangedItemId(i));
 
-		if (npc.getName().equals(recipientRealName))
-		{
-			if (mark)
-			{
-				client.setHintArrow(npc);
-			}
-			else
+			if (index >= 0 && stagePlan.usesItem(index))
 			{
-				client.clearHintArrow();
+				return true;
 			}
-			return true;
 		}
 		return false;
 	}
 
-	@Subscribe
-	public void onNpcSpawned(final NpcSpawned event)
+	private void updateDialogRegion()
 	{
-		if (isTrackingDelivery && config.showHintArrow())
+		boolean wasInDialogRegion = inDialogRegion;
+		inDialogRegion = false;
+
+		for (int regionId : client.getMapRegions())
 		{
-			toggleMarkRecipient(event.getNpc(), true);
+			if (Arrays.binarySearch(DIALOG_REGION_IDS, regionId) >= 0)
+			{
+				inDialogRegion = true;
+				break;
+			}
+		}
+
+		// Stop watching a dialog that was left behind
+
+		if (wasInDialogRegion && !inDialogRegion)
+		{
+			dialogWatcher.reset();
 		}
 	}
 
 	@Subscribe
-	public void onNpcDespawned(final NpcDespawned event)
+	public void onWidgetLoaded(WidgetLoaded event)
 	{
-		if (isTrackingDelivery && config.showHintArrow())
+		long start = System.nanoTime();
+
+		try
 		{
-			toggleMarkRecipient(event.getNpc(), false);
+			// Dialog detection, and with it the delay timer, is off away from Gianne jnr.
+
+			if (inDialogRegion)
+			{
+				dialogWatcher.onWidgetLoaded(event.getGroupId());
+			}
+		}
+		finally
+		{
+			handlerStats.record(TimedHandler.WIDGET_LOADED, start);
 		}
 	}
 
-	// Build a linear graph that links stages together, and define the items required to move to the next stage
-
-	private void rebuildStageNodeList()
+	@Subscribe
+	public void onGameTick(GameTick event)
 	{
-		stageNodes.clear();
+		long start = System.nanoTime();
 
-		// Ingredients
+		try
+		{
+			// Timeouts fire before the dialog is read, so a delay ending on this tick can be started again
 
-		ArrayList<CookingItem> initialIngredients = itemOrder.getIngredients(false);
-		ArrayList<CookingItem> laterIngredients = itemOrder.getIngredients(true);
+			tickWheel.advance();
 
-		if (itemOrder.getItemOrderType() == ItemOrderType.COCKTAIL)
-		{
-			// Starting items
+			// Only parse Gianne jnr.'s dialog when it has changed since the last tick
 
-			ArrayList<CookingItem> startingItems = new ArrayList<>(initialIngredients);
-			startingItems.add(new CookingItem(ItemID.COCKTAIL_SHAKER, 1));
-			stageNodes.add(new StageNode(MinigameStage.COMBINE_INGREDIENTS, startingItems));
+			String dialog = dialogWatcher.poll();
 
-			ArrayList<CookingItem> requiredItemsToPour = new ArrayList<CookingItem>();
+			if (sessionRecorder.isRecording())
+			{
+				if (dialog != null)
+				{
+					sessionRecorder.recordDialog(dialog);
+				}
+				sessionRecorder.recordGameTick();
+			}
 
+			if (dialog == null)
+			{
+				return;
+			}
 
-			requiredItemsToPour.add(new CookingItem(ItemID.COCKTAIL_GLASS, 1));
+			DIALOG_CLASSIFIER.classify(dialog, dialogMatch);
 
+			if (isDeliveryForTesting)
+			{
+				resetPluginAndTest("Starting real delivery");
+			}
 
-			if (itemOrder instanceof HeatedCocktailOrder)
+			if (dialogMatch.hasLine(DialogLine.DELIVERY_START) && !isTrackingDelivery)
 			{
-				stageNodes.add(new StageNode(MinigameStage.POUR, requiredItemsToPour, ((HeatedCocktailOrder) itemOrder).getShakerMixId()));
+				// Don't let a recipient or order we don't know about escape the event handler
 
-				if (((HeatedCocktailOrder) itemOrder).getHeatTiming() == HeatTiming.BEFORE_ADDING_INGREDS)
+				try
 				{
-					stageNodes.add(new StageNode(MinigameStage.HEAT_AGAIN, ((HeatedCocktailOrder) itemOrder).getPouredMixId()));
-					stageNodes.add(new StageNode(MinigameStage.TOP_WITH_INGREDIENTS, laterIngredients, ((HeatedCocktailOrder) itemOrder).getSecondPouredMixId()));
+					startTrackingDelivery(dialogMatch.lookupRecipientName(), dialogMatch.lookupOrderName());
 				}
-				else
+				catch (InvalidParameterException e)
 				{
-					stageNodes.add(new StageNode(MinigameStage.TOP_WITH_INGREDIENTS, laterIngredients, ((HeatedCocktailOrder) itemOrder).getPouredMixId()));
-					stageNodes.add(new StageNode(MinigameStage.HEAT_AGAIN, ((HeatedCocktailOrder) itemOrder).getSecondPouredMixId()));
+					log.warn("Could not track delivery of {} to {}: {}", dialogMatch.getOrderName(), dialogMatch.getRecipientName(), e.getMessage());
+					reset();
 				}
 			}
-			else
+
+			// Show delay timer if player refuses the order
+
+			if (config.showDelayTimer() && !delayExpiry.isScheduled()
+				&& (dialogMatch.hasLine(DialogLine.EASY_DELIVERY_DELAY) || dialogMatch.hasLine(DialogLine.HARD_DELIVERY_DELAY)))
 			{
-				requiredItemsToPour.addAll(laterIngredients);
-				stageNodes.add(new StageNode(MinigameStage.POUR, requiredItemsToPour, ((CocktailOrder) itemOrder).getShakerMixId()));
+				// The item images are only read on the client thread
+
+				tickWheel.schedule(delayExpiry, TickTimerInfoBox.secondsToTicks(DELAY_SECONDS));
+				delayTimer.setImage(itemAssetCache.getImage(ItemID.ALUFT_ALOFT_BOX));
+				infoBoxManager.addInfoBox(delayTimer);
 			}
 		}
-		else
+		finally
 		{
-			ArrayList<CookingItem> startingItems = new ArrayList<>();
-			startingItems.add(new CookingItem(ItemID.GIANNE_DOUGH, 1));
-			startingItems.add(new CookingItem(itemOrder.getItemOrderType().getToolId(), 1));
+			handlerStats.record(TimedHandler.GAME_TICK, start);
+		}
+	}
 
-			stageNodes.add(new StageNode(MinigameStage.CREATE_MOULD, startingItems));
-			stageNodes.add(new StageNode(MinigameStage.BAKE_MOULD, itemOrder.getItemOrderType().getMouldId()));
-			stageNodes.add(new StageNode(MinigameStage.COMBINE_INGREDIENTS, initialIngredients, itemOrder.getItemOrderType().getHalfBakedId()));
+	void startTrackingDelivery(String printedRecipientName, String orderName)
+	{
+		startTrackingDelivery(CatalogNames.lookup(printedRecipientName), CatalogNames.lookup(orderName));
+	}
 
-			stageNodes.add(new StageNode(MinigameStage.HEAT_AGAIN, ((BakedOrder) itemOrder).getHalfMadeId()));
+	/**
+	 * Start tracking an order on the tick its dialog is read. The stage plans are compiled and the item images
+	 * loaded at startup, so the order timer, hint arrow and overlay can all be shown on this tick.
+	 * @param recipientName the CatalogNames code of the recipient's printed name
+	 * @param orderName the CatalogNames code of the order's name
+	 */
+	void startTrackingDelivery(int recipientName, int orderName)
+	{
+		if (!CatalogNames.isOrder(orderName))
+		{
+			throw new InvalidParameterException("Unknown order");
+		}
 
-			if (itemOrder instanceof BakedToppedOrder)
-			{
-				stageNodes.add(new StageNode(MinigameStage.TOP_WITH_INGREDIENTS, laterIngredients, ((BakedToppedOrder) itemOrder).getUnfinishedId()));
-			}
+		if (!CatalogNames.isRecipient(recipientName))
+		{
+			throw new InvalidParameterException("Unknown recipient");
 		}
-		stageNodes.add(new StageNode(MinigameStage.DELIVER, new ArrayList<CookingItem>()
+
+		// Players can change their order upon earning a full reward token
+
+		endReplacedOrder();
+
+		int order = CatalogNames.getOrdinal(orderName);
+		stagePlan = orderStagePlans[order];
+		itemOrder = stagePlan.getItemOrder();
+
+		recipientRealName = RecipeCatalog.getRecipientRealName(CatalogNames.getOrdinal(recipientName));
+		boolean isHardOrder = CatalogNames.isHard(recipientName);
+
+		if (!isDeliveryForTesting)
 		{
-			{
-				add(new CookingItem(ItemID.ALUFT_ALOFT_BOX, 1));
-			}
-		}, itemOrder.getItemId()));
-	}
+			sessionStats.startOrder(itemOrder.getItemOrderType(), isHardOrder, System.nanoTime());
+			deliveryRecord = new DeliveryRecord(order, CatalogNames.getOrdinal(recipientName), isHardOrder, System.currentTimeMillis(), client.getTickCount());
+		}
 
-	@Subscribe
-	public void onVarbitChanged(VarbitChanged event)
-	{
-		// Ignore varbit changes while we are testing, since it will stay 0
+		// Infer the starting stage from the whole inventory, the tracker follows the changes from here on
+
+		ItemContainer inventory = client.getItemContainer(InventoryID.INVENTORY);
+		assert inventory != null;
+		inventorySnapshot.update(inventory);
+		stageInference.reset(stagePlan);
+		isTrackingDelivery = true;
+		inferStageFromSnapshot();
+
+		// Only listen to NPCs, varbits and the inventory while the delivery lasts
 
-		if (isTrackingDelivery && !isDeliveryForTesting && client.getVarbitValue(2478) == 0)
+		deliveryTracker.start(recipientRealName, !isDeliveryForTesting);
+
+		if (!isTrackerRegistered)
 		{
-			reset();
+			eventBus.register(deliveryTracker);
+			isTrackerRegistered = true;
 		}
-	}
 
-	@Subscribe
-	public void onItemContainerChanged(ItemContainerChanged event)
-	{
-		if (overlay != null)
+		// Delete the delay timer if it is active (we can choose hard orders during a delay)
+
+		removeDelayTimer();
+
+		int orderTicks = TickTimerInfoBox.secondsToTicks(isHardOrder ? HARD_ORDER_SECONDS : EASY_ORDER_SECONDS);
+		tickWheel.schedule(orderExpiry, orderTicks);
+		scheduleOrderWarning(orderTicks);
+
+		if (config.showOrderTimer())
 		{
-			if (event.getContainerId() != InventoryID.INVENTORY.getId())
-			{
-				return;
-			}
+			orderTimer.setImage(itemAssetCache.getImage(itemOrder.getItemId()));
+			orderTimer.setTooltip("Deliver " + RecipeCatalog.getOrderName(order) + " to " + recipientRealName);
+			infoBoxManager.addInfoBox(orderTimer);
+		}
+
+		// Look through the whole NPC cache once, the tracker follows spawns and despawns from here on
+
+		deliveryTracker.seedRecipients();
 
-			updateStage(event.getItemContainer(), false);
+		// Draw hint arrow if we can already identify the NPC
+
+		if (config.showHintArrow())
+		{
+			deliveryTracker.markRecipient();
+		}
+
+		if (config.showOverlay())
+		{
+			publishOverlaySnapshot();
+			overlay = new GnomeRestaurantOverlay(this);
+			overlayManager.add(overlay);
+			tickWheel.schedule(sessionStatsRefresh, SESSION_STATS_REFRESH_TICKS);
 		}
 	}
 
 	/**
-	 * Update stage according to inventory and update / rebuild overlay tables
-	 * @param forceRebuildOverlayTables Set this to true when we need to build an overlay table upon receiving a delivery
+	 * Clear what the tracked order shows before another order replaces it. The tracker stays registered, it
+	 * is started again for the new order.
 	 */
-	private void updateStage(ItemContainer inventory, boolean forceRebuildOverlayTables)
+	private void endReplacedOrder()
 	{
-		int traversedStageNodeIndex = stageNodes.size() - 1;
+		if (!isTrackingDelivery)
+		{
+			return;
+		}
+
+		endOrder(false);
+		removeOrderTimer();
+		removeOverlay();
+		client.clearHintArrow();
+	}
 
-		while (traversedStageNodeIndex > currentStageNodeIndex)
+	/**
+	 * Called by the delivery tracker when the inventory changes during a delivery. Only the items whose count
+	 * changed are looked at, so inventory changes that have nothing to do with the order end after the diff.
+	 */
+	void onInventoryChanged(ItemContainer inventory)
+	{
+		if (!isTrackingDelivery)
 		{
-			if (inventory.contains(stageNodes.get(traversedStageNodeIndex).getProducedItemId()))
-			{
-				currentStageNodeIndex = traversedStageNodeIndex;
+			return;
+		}
 
-				// Rebuild overlay tables after updating the stage
+		inventorySnapshot.update(inventory);
+		boolean isPlanItemChanged = false;
 
-				rebuildOverlayTables(inventory);
+		for (int i = 0; i < inventorySnapshot.getChangedItemCount(); i++)
+		{
+			int itemId = inventorySnapshot.getChangedItemId(i);
+			int index = itemIndex.indexOf(itemId);
 
-				return;
+			if (index >= 0 && stagePlan.usesItem(index))
+			{
+				isPlanItemChanged = true;
+				stageInference.onItemChanged(itemId, inventorySnapshot.contains(itemId));
 			}
-			traversedStageNodeIndex--;
 		}
 
-		ArrayList<Hashtable<Integer, OverlayEntry>> overlayTables = new ArrayList<Hashtable<Integer, OverlayEntry>>()
+		if (!isPlanItemChanged)
 		{
-			{
-				add(currentItemsOverlayTable);
-				add(futureItemsOverlayTable);
-			}
-		};
+			return;
+		}
 
-		if (forceRebuildOverlayTables)
+		// Stage times are kept with the overlay off, only the snapshot needs the overlay
+
+		int inferredStageNodeIndex = inferStage();
+		boolean isStageChanged = inferredStageNodeIndex != currentStageNodeIndex;
+		currentStageNodeIndex = inferredStageNodeIndex;
+
+		if (overlay == null)
+		{
+			return;
+		}
+
+		// A new stage changes which rows are shown, otherwise only the counts of the shown rows can change
+
+		if (isStageChanged)
 		{
-			rebuildOverlayTables(inventory);
+			publishOverlaySnapshot();
 		}
 		else
 		{
-			// Simply update inventory counts for overlay tables if the stage has not changed
+			overlaySnapshot = overlaySnapshot.withItemCounts(containerSnapshots, inventorySnapshot);
+		}
+	}
 
-			for (Hashtable<Integer, OverlayEntry> overlayTable : overlayTables)
-			{
-				for (Map.Entry<Integer, OverlayEntry> entry : overlayTable.entrySet())
-				{
-					int realInventoryCount = inventory.count(entry.getKey());
-					if (entry.getValue().getInventoryCount() != realInventoryCount)
-					{
-						entry.getValue().setInventoryCount(realInventoryCount);
-					}
-				}
-			}
+	/**
+	 * Work out the stage from the whole inventory snapshot and publish a new overlay snapshot, used when the
+	 * stage is reset from the overlay menu
+	 */
+	void updateStage()
+	{
+		inferStageFromSnapshot();
+		publishOverlaySnapshot();
+	}
+
+	private void inferStageFromSnapshot()
+	{
+		// Look up each produced item in the plan's reverse index, the stage can move back as well as forward
+
+		for (int i = 1; i < stagePlan.size(); i++)
+		{
+			int producedItemId = stagePlan.getStageNode(i).getProducedItemId();
+			stageInference.onItemChanged(producedItemId, inventorySnapshot.contains(producedItemId));
+		}
+
+		currentStageNodeIndex = inferStage();
+	}
+
+	/**
+	 * @return the stage inferred from the held items, recorded in the session stats and delivery record
+	 */
+	private int inferStage()
+	{
+		int inferredStageNodeIndex = stageInference.getCurrentStageIndex();
+		MinigameStage inferredStage = stagePlan.getStageNode(inferredStageNodeIndex).getStage();
+		sessionStats.enterStage(inferredStage, System.nanoTime());
+
+		if (deliveryRecord != null)
+		{
+			deliveryRecord.enterStage(inferredStage, client.getTickCount());
 		}
+		return inferredStageNodeIndex;
 	}
 
 	// Overlay methods
@@ -886,48 +765,79 @@ public class GnomeRestaurantPlugin extends Plugin
 			// Reset to beginning stage, then update it again
 
 			currentStageNodeIndex = 0;
+			stageInference.reset(stagePlan);
 
 			ItemContainer inventory = client.getItemContainer(InventoryID.INVENTORY);
 			assert inventory != null;
-			updateStage(inventory, true);
+			inventorySnapshot.update(inventory);
+			updateStage();
 		}
 	}
 
 	/**
-	 * Add overlay entries to an overlay table
+	 * Add overlay entries to a list of rows, keeping the first row for each item
 	 */
-	private void addItemsToOverlayTable(Hashtable<Integer, OverlayEntry> overlayTable, ItemContainer inventory, ArrayList<CookingItem> itemStacks)
+	private void addOverlayEntries(List<OverlayEntry> overlayEntries, List<CookingItem> itemStacks)
 	{
 		for (CookingItem itemStack : itemStacks)
 		{
-			String itemName = itemManager.getItemComposition(itemStack.getItemId()).getName();
-			overlayTable.put(itemStack.getItemId(), new OverlayEntry(itemName, inventory.count(itemStack.getItemId()), itemStack.getCount()));
+			if (!containsItem(overlayEntries, itemStack.getItemId()))
+			{
+				String itemName = itemAssetCache.getItemName(itemStack.getItemId());
+				overlayEntries.add(containerSnapshots.createOverlayEntry(itemStack.getItemId(), itemName, itemStack.getCount()));
+			}
 		}
 	}
 
-	private void rebuildOverlayTables(ItemContainer inventory)
+	private static boolean containsItem(List<OverlayEntry> overlayEntries, int itemId)
 	{
-		futureItemsOverlayTable.clear();
-		currentItemsOverlayTable.clear();
-
-		for (int i = stageNodes.size() - 1; i >= currentStageNodeIndex; i--)
+		for (OverlayEntry overlayEntry : overlayEntries)
 		{
-			Hashtable<Integer, OverlayEntry> overlayTable;
-			ArrayList<CookingItem> requiredItems = new ArrayList<>(stageNodes.get(i).getOtherRequiredItems());
-			if (i == currentStageNodeIndex)
-			{
-				overlayTable = currentItemsOverlayTable;
-				if (i > 0)
-				{
-					requiredItems.add(new CookingItem(stageNodes.get(i).getProducedItemId(), 1));
-				}
-			}
-			else
+			if (overlayEntry.getItemId() == itemId)
 			{
-				overlayTable = futureItemsOverlayTable;
+				return true;
 			}
-			addItemsToOverlayTable(overlayTable, inventory, requiredItems);
 		}
+		return false;
+	}
+
+	/**
+	 * Build the overlay rows for the current stage and publish them in one step
+	 */
+	void publishOverlaySnapshot()
+	{
+		StageNode currentStageNode = stagePlan.getStageNode(currentStageNodeIndex);
+
+		ArrayList<OverlayEntry> currentItems = new ArrayList<>();
+		ArrayList<OverlayEntry> futureItems = new ArrayList<>();
+
+		addOverlayEntries(currentItems, currentStageNode.getCurrentItems());
+
+		for (int i = currentStageNodeIndex + 1; i < stagePlan.size(); i++)
+		{
+			addOverlayEntries(futureItems, stagePlan.getStageNode(i).getOtherRequiredItems());
+		}
+
+		overlaySnapshot = new OverlaySnapshot(currentStageNodeIndex, currentStageNode.getStage().directions, currentItems, futureItems,
+			getSessionStatLines());
+	}
+
+	/**
+	 * @return the session stat rows, only rebuilt when the stats have changed since the last snapshot
+	 */
+	private List<SessionStatLine> getSessionStatLines()
+	{
+		if (!config.showSessionStats())
+		{
+			return Collections.emptyList();
+		}
+
+		if (sessionStatLinesVersion != sessionStats.getVersion())
+		{
+			sessionStatLines = sessionStats.describe(System.nanoTime());
+			sessionStatLinesVersion = sessionStats.getVersion();
+		}
+		return sessionStatLines;
 	}
 
 	// Config
@@ -941,51 +851,141 @@ public class GnomeRestaurantPlugin extends Plugin
 	@Subscribe
 	public void onConfigChanged(ConfigChanged event)
 	{
-		if (!config.showDelayTimer())
-		{
-			removeDelayTimer();
-		}
+		// Config changes arrive on the event bus thread, the timers, overlay and hint arrow belong to the client thread
 
-		if (!config.showOrderTimer())
+		clientThread.invoke(() ->
 		{
-			removeOrderTimer();
-		}
+			// The timeouts keep running so the warnings still come and the delay is not forgotten
 
-		if (!config.showOverlay())
-		{
-			removeOverlay();
-		}
+			if (!config.showDelayTimer())
+			{
+				infoBoxManager.removeInfoBox(delayTimer);
+			}
 
-		if (!config.showHintArrow())
-		{
-			client.clearHintArrow();
-		}
-		else if (isTrackingDelivery)
-		{
-			// Re-enable hint arrow
+			if (!config.showOrderTimer())
+			{
+				infoBoxManager.removeInfoBox(orderTimer);
+			}
 
-			markNPCFromCache();
-		}
+			orderWarningTicks = parseOrderWarnings(config.orderWarnings());
+
+			if (orderExpiry.isScheduled())
+			{
+				tickWheel.cancel(orderWarning);
+				scheduleOrderWarning(tickWheel.getRemainingTicks(orderExpiry));
+			}
+
+			if (!config.showOverlay())
+			{
+				removeOverlay();
+			}
+
+			if (config.saveDeliveryHistory())
+			{
+				deliveryHistory.open(HISTORY_FILE);
+			}
+			else
+			{
+				deliveryHistory.close();
+			}
+
+			if (!config.showHintArrow())
+			{
+				client.clearHintArrow();
+			}
+			else if (isTrackingDelivery)
+			{
+				// Re-enable hint arrow
+
+				deliveryTracker.markRecipient();
+			}
+		});
 	}
 
 	// UI cleaning
 
 	private void removeOrderTimer()
 	{
+		tickWheel.cancel(orderExpiry);
+		tickWheel.cancel(orderWarning);
 		infoBoxManager.removeInfoBox(orderTimer);
-		orderTimer = null;
 	}
 
 	private void removeDelayTimer()
 	{
+		tickWheel.cancel(delayExpiry);
 		infoBoxManager.removeInfoBox(delayTimer);
-		delayTimer = null;
+	}
+
+	// Order warnings
+
+	/**
+	 * @param orderWarnings comma separated seconds left, anything that is not a positive number is skipped
+	 * @return the warnings in ticks, largest first and without duplicates
+	 */
+	static int[] parseOrderWarnings(String orderWarnings)
+	{
+		TreeSet<Integer> ticks = new TreeSet<>(Collections.reverseOrder());
+
+		for (String seconds : orderWarnings.split(","))
+		{
+			try
+			{
+				int warningTicks = TickTimerInfoBox.secondsToTicks(Integer.parseInt(seconds.trim()));
+
+				if (warningTicks > 0)
+				{
+					ticks.add(warningTicks);
+				}
+			}
+			catch (NumberFormatException e)
+			{
+				// Leave it out
+			}
+		}
+
+		return ticks.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Schedule the first warning that has not been passed yet
+	 */
+	private void scheduleOrderWarning(int remainingTicks)
+	{
+		for (int warningTicks : orderWarningTicks)
+		{
+			if (warningTicks < remainingTicks)
+			{
+				tickWheel.schedule(orderWarning, remainingTicks - warningTicks);
+				return;
+			}
+		}
+	}
+
+	private void warnOrderTimeLeft()
+	{
+		int remainingTicks = tickWheel.getRemainingTicks(orderExpiry);
+		int seconds = remainingTicks * TickTimerInfoBox.GAME_TICK_MILLIS / 1000;
+		printChatMessage(seconds + " seconds left to deliver to " + recipientRealName);
+		scheduleOrderWarning(remainingTicks);
+	}
+
+	private void refreshSessionStats()
+	{
+		if (config.showSessionStats())
+		{
+			sessionStatLinesVersion = -1;
+			overlaySnapshot = overlaySnapshot.withSessionStatLines(getSessionStatLines());
+		}
+		tickWheel.schedule(sessionStatsRefresh, SESSION_STATS_REFRESH_TICKS);
 	}
 
 	private void removeOverlay()
 	{
+		tickWheel.cancel(sessionStatsRefresh);
 		overlayManager.remove(overlay);
 		overlay = null;
+		overlaySnapshot = null;
 	}
 
 	// Plugin testing
@@ -1005,9 +1005,24 @@ public class GnomeRestaurantPlugin extends Plugin
 			resetPluginAndTest("Reset command called.");
 			return;
 		}
+		else if (commandExecuted.getArguments()[0].equals("record"))
+		{
+			toggleSessionRecording(commandExecuted.getArguments().length > 1 && commandExecuted.getArguments()[1].equals("stop"));
+			return;
+		}
+		else if (commandExecuted.getArguments()[0].equals("stats"))
+		{
+			printHandlerStats(commandExecuted.getArguments().length > 1 && commandExecuted.getArguments()[1].equals("reset"));
+			return;
+		}
+		else if (commandExecuted.getArguments()[0].equals("history"))
+		{
+			printDeliveryHistory(commandExecuted.getArguments().length > 1 ? commandExecuted.getArguments()[1].replace("_", " ") : null);
+			return;
+		}
 		else if (isTrackingDelivery && !isDeliveryForTesting)
 		{
-			printTestMessage("Cannot run test when a real order is in progress");
+			printChatMessage("Cannot run test when a real order is in progress");
 			return;
 		}
 
@@ -1025,7 +1040,7 @@ public class GnomeRestaurantPlugin extends Plugin
 			recipientName = commandExecuted.getArguments()[1].replace("_", " ");
 		}
 
-		printTestMessage("Test started with arguments: " + orderName + ", " + recipientName);
+		printChatMessage("Test started with arguments: " + orderName + ", " + recipientName);
 
 		try
 		{
@@ -1034,7 +1049,7 @@ public class GnomeRestaurantPlugin extends Plugin
 		}
 		catch (InvalidParameterException e)
 		{
-			resetPluginAndTest(e.getMessage());
+			resetPluginAndTest(e.getMessage() + ": " + orderName + ", " + recipientName);
 		}
 	}
 
@@ -1045,10 +1060,113 @@ public class GnomeRestaurantPlugin extends Plugin
 	{
 		reset();
 		isDeliveryForTesting = false;
-		printTestMessage("Test cancelled. Reason: " + errorMessage);
+		printChatMessage("Test cancelled. Reason: " + errorMessage);
+	}
+
+	// Session recording
+
+	/**
+	 * Start recording to a new session log, or stop recording
+	 */
+	private void toggleSessionRecording(boolean stop)
+	{
+		eventBus.unregister(sessionRecorder);
+
+		if (stop)
+		{
+			sessionRecorder.stop();
+			printChatMessage("Session recording stopped: " + sessionRecorder.getFile());
+			return;
+		}
+
+		try
+		{
+			sessionRecorder.start(new File(SESSION_DIRECTORY, "session-" + System.currentTimeMillis() + ".bin"));
+		}
+		catch (IOException e)
+		{
+			log.warn("Could not start session recording", e);
+			printChatMessage("Could not start session recording: " + e.getMessage());
+			return;
+		}
+
+		eventBus.register(sessionRecorder);
+		printChatMessage("Session recording started: " + sessionRecorder.getFile());
+	}
+
+	// Handler stats
+
+	private void printHandlerStats(boolean reset)
+	{
+		if (reset)
+		{
+			handlerStats.reset();
+			sessionStats.reset();
+			printChatMessage("Handler and session stats reset");
+			return;
+		}
+
+		List<String> lines = handlerStats.describe();
+
+		if (lines.isEmpty())
+		{
+			printChatMessage("No handler calls recorded yet");
+		}
+
+		for (String line : lines)
+		{
+			printChatMessage(line);
+		}
+	}
+
+	/**
+	 * Summarize the saved deliveries of one order, or of all orders, once the history thread has read them
+	 */
+	private void printDeliveryHistory(String orderName)
+	{
+		int order = DeliveryHistory.ANY_ORDER;
+
+		if (orderName != null)
+		{
+			int code = CatalogNames.lookup(orderName);
+
+			if (!CatalogNames.isOrder(code))
+			{
+				printChatMessage("Unknown order: " + orderName);
+				return;
+			}
+			order = CatalogNames.getOrdinal(code);
+		}
+
+		if (!deliveryHistory.isOpen())
+		{
+			printChatMessage("Delivery history is turned off or could not be opened");
+			return;
+		}
+
+		long start = System.nanoTime();
+
+		deliveryHistory.query(0, Long.MAX_VALUE, order).thenAccept(records ->
+		{
+			int delivered = 0;
+			long deliveredTicks = 0;
+
+			for (DeliveryRecord record : records)
+			{
+				if (record.isDelivered())
+				{
+					delivered++;
+					deliveredTicks += record.getDurationTicks();
+				}
+			}
+
+			printChatMessage(records.size() + " orders, " + delivered + " delivered"
+				+ (delivered > 0 ? " in " + deliveredTicks / delivered + " ticks on average" : "")
+				+ ", read in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+		});
 	}
 
-	private void printTestMessage(String message)
+	private void printChatMessage(String message)
 	{
 		chatMessageManager.queue(QueuedMessage.builder().type(ChatMessageType.GAMEMESSAGE).value(message).build());
 	}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timings of the plugin's work on the client thread, one histogram per event handler
+ */
+public class HandlerStats
+{
+	private final LatencyHistogram[] histograms = new LatencyHistogram[TimedHandler.values().length];
+
+	public HandlerStats()
+	{
+		for (int i = 0; i < histograms.length; i++)
+		{
+			histograms[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * Record a call that started at the given System.nanoTime() and has just finished
+	 */
+	public void record(TimedHandler handler, long startNanos)
+	{
+		histograms[handler.ordinal()].record(System.nanoTime() - startNanos);
+	}
+
+	public LatencyHistogram getHistogram(TimedHandler handler)
+	{
+		return histograms[handler.ordinal()];
+	}
+
+	public void reset()
+	{
+		for (LatencyHistogram histogram : histograms)
+		{
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * @return a line for each handler that has been called
+	 */
+	public List<String> describe()
+	{
+		List<String> lines = new ArrayList<>();
+
+		for (TimedHandler handler : TimedHandler.values())
+		{
+			LatencyHistogram histogram = getHistogram(handler);
+
+			if (histogram.getCount() == 0)
+			{
+				continue;
+			}
+
+			lines.add(handler.getDisplayName() + ": " + histogram.getCount() + " calls"
+				+ ", p50 " + formatNanos(histogram.getPercentile(0.50))
+				+ ", p99 " + formatNanos(histogram.getPercentile(0.99))
+				+ ", max " + formatNanos(histogram.getMax()));
+		}
+		return lines;
+	}
+
+	private static String formatNanos(long nanos)
+	{
+		if (nanos < 1_000)
+		{
+			return nanos + " ns";
+		}
+		else if (nanos < 1_000_000)
+		{
+			return String.format("%.1f us", nanos / 1e3);
+		}
+		return String.format("%.1f ms", nanos / 1e6);
+	}
+}
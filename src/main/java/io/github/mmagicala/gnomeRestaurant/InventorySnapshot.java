@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.util.Arrays;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+
+/**
+ * Item counts of a container, taken in one pass over its slots. Lookups go through an open-addressed
+ * int to int table, so each stage and overlay query is O(1) instead of a scan of the container. Each update
+ * is diffed against the previous one, so callers only need to look at the items whose count has changed.
+ */
+public class InventorySnapshot
+{
+	private static final int EMPTY_KEY = -1;
+	private static final Item[] NO_ITEMS = new Item[0];
+
+	private int[] itemIds = new int[64];
+	private int[] counts = new int[64];
+	private int mask = itemIds.length - 1;
+
+	// The table before the last update, swapped with the current one on every update so neither is reallocated
+
+	private int[] previousItemIds = new int[64];
+	private int[] previousCounts = new int[64];
+	private int previousMask = previousItemIds.length - 1;
+
+	// Items whose count differs from the previous update, each listed once
+
+	private int[] changedItemIds = new int[32];
+	private int changedItemCount;
+
+	public InventorySnapshot()
+	{
+		Arrays.fill(itemIds, EMPTY_KEY);
+		Arrays.fill(previousItemIds, EMPTY_KEY);
+	}
+
+	/**
+	 * Replace the snapshot with the contents of a container and work out which item counts have changed
+	 */
+	public void update(ItemContainer container)
+	{
+		Item[] items = container == null ? NO_ITEMS : container.getItems();
+
+		int[] swapItemIds = previousItemIds;
+		int[] swapCounts = previousCounts;
+		previousItemIds = itemIds;
+		previousCounts = counts;
+		previousMask = mask;
+		itemIds = swapItemIds;
+		counts = swapCounts;
+		mask = itemIds.length - 1;
+
+		// Keep the table at most half full
+
+		if (items.length * 2 > itemIds.length)
+		{
+			int capacity = Integer.highestOneBit(items.length * 4 - 1);
+			itemIds = new int[capacity];
+			counts = new int[capacity];
+			mask = capacity - 1;
+		}
+
+		Arrays.fill(itemIds, EMPTY_KEY);
+
+		for (Item item : items)
+		{
+			if (item.getId() != EMPTY_KEY)
+			{
+				int slot = findSlot(itemIds, mask, item.getId());
+				if (itemIds[slot] == EMPTY_KEY)
+				{
+					itemIds[slot] = item.getId();
+					counts[slot] = 0;
+				}
+				counts[slot] += item.getQuantity();
+			}
+		}
+
+		// Items held now with a new count, then items no longer held at all
+
+		changedItemCount = 0;
+
+		for (int slot = 0; slot < itemIds.length; slot++)
+		{
+			if (itemIds[slot] != EMPTY_KEY && counts[slot] != count(previousItemIds, previousCounts, previousMask, itemIds[slot]))
+			{
+				addChangedItem(itemIds[slot]);
+			}
+		}
+
+		for (int slot = 0; slot < previousItemIds.length; slot++)
+		{
+			if (previousItemIds[slot] != EMPTY_KEY && !contains(previousItemIds[slot]))
+			{
+				addChangedItem(previousItemIds[slot]);
+			}
+		}
+	}
+
+	private void addChangedItem(int itemId)
+	{
+		if (changedItemCount == changedItemIds.length)
+		{
+			changedItemIds = Arrays.copyOf(changedItemIds, changedItemCount * 2);
+		}
+		changedItemIds[changedItemCount++] = itemId;
+	}
+
+	/**
+	 * @return the number of items whose count changed in the last update
+	 */
+	public int getChangedItemCount()
+	{
+		return changedItemCount;
+	}
+
+	public int getChangedItemId(int index)
+	{
+		return changedItemIds[index];
+	}
+
+	public int count(int itemId)
+	{
+		return count(itemIds, counts, mask, itemId);
+	}
+
+	public boolean contains(int itemId)
+	{
+		return itemIds[findSlot(itemIds, mask, itemId)] != EMPTY_KEY;
+	}
+
+	private static int count(int[] itemIds, int[] counts, int mask, int itemId)
+	{
+		int slot = findSlot(itemIds, mask, itemId);
+		return itemIds[slot] == EMPTY_KEY ? 0 : counts[slot];
+	}
+
+	// Linear probing from a Fibonacci hash of the item ID
+
+	private static int findSlot(int[] itemIds, int mask, int itemId)
+	{
+		int slot = (itemId * 0x9E3779B9) >>> 16 & mask;
+
+		while (itemIds[slot] != EMPTY_KEY && itemIds[slot] != itemId)
+		{
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+}
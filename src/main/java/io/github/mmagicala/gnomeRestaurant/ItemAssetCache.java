@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import javax.inject.Inject;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.util.AsyncBufferedImage;
+
+/**
+ * Names and icons of the items used by the recipes. The cache is filled on the client thread a few
+ * items per client tick, so that accepting an order or changing stage only reads from it.
+ */
+public class ItemAssetCache
+{
+	private static final int BATCH_SIZE = 8;
+
+	private final Client client;
+	private final ClientThread clientThread;
+	private final ItemManager itemManager;
+
+	// Only accessed on the client thread
+
+	private final Map<Integer, String> itemNames = new HashMap<>();
+	private final Map<Integer, AsyncBufferedImage> itemImages = new HashMap<>();
+	private final ArrayDeque<Integer> pendingItemIds = new ArrayDeque<>();
+
+	@Inject
+	public ItemAssetCache(Client client, ClientThread clientThread, ItemManager itemManager)
+	{
+		this.client = client;
+		this.clientThread = clientThread;
+		this.itemManager = itemManager;
+	}
+
+	/**
+	 * Queue items to be loaded in the background
+	 */
+	public void prewarm(Collection<Integer> itemIds)
+	{
+		clientThread.invokeLater(() ->
+		{
+			boolean idle = pendingItemIds.isEmpty();
+			pendingItemIds.addAll(itemIds);
+
+			if (idle)
+			{
+				clientThread.invokeLater(this::loadBatch);
+			}
+		});
+	}
+
+	/**
+	 * Load the next batch of queued items
+	 * @return true once the queue is empty, so that the client thread stops calling it
+	 */
+	private boolean loadBatch()
+	{
+		// Item definitions are not available until the client has started
+
+		if (client.getGameState().getState() < GameState.LOGIN_SCREEN.getState())
+		{
+			return false;
+		}
+
+		for (int i = 0; i < BATCH_SIZE && !pendingItemIds.isEmpty(); i++)
+		{
+			int itemId = pendingItemIds.poll();
+			getItemName(itemId);
+			getImage(itemId);
+		}
+
+		return pendingItemIds.isEmpty();
+	}
+
+	/**
+	 * Must be called on the client thread, falls back to the item manager if the item has not been loaded yet
+	 */
+	public String getItemName(int itemId)
+	{
+		String itemName = itemNames.get(itemId);
+
+		if (itemName == null)
+		{
+			itemName = itemManager.getItemComposition(itemId).getName();
+			itemNames.put(itemId, itemName);
+		}
+		return itemName;
+	}
+
+	public AsyncBufferedImage getImage(int itemId)
+	{
+		AsyncBufferedImage image = itemImages.get(itemId);
+
+		if (image == null)
+		{
+			image = itemManager.getImage(itemId);
+			itemImages.put(itemId, image);
+		}
+		return image;
+	}
+
+	public void clear()
+	{
+		clientThread.invokeLater(() ->
+		{
+			pendingItemIds.clear();
+			itemNames.clear();
+			itemImages.clear();
+		});
+	}
+}
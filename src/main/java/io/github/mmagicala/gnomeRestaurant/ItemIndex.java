@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Dense numbering of the few dozen items used by the recipes, so sets of them fit in a couple of longs.
+ * Indices follow item ID order.
+ */
+public class ItemIndex
+{
+	private final int[] itemIds;
+
+	private ItemIndex(int[] itemIds)
+	{
+		this.itemIds = itemIds;
+	}
+
+	/**
+	 * Number every item required or produced by the given stages
+	 */
+	public static ItemIndex of(Collection<List<StageNode>> stageNodeLists)
+	{
+		return new ItemIndex(stageNodeLists.stream()
+			.flatMap(List::stream)
+			.flatMap(stageNode -> stageNode.getCurrentItems().stream())
+			.mapToInt(CookingItem::getItemId)
+			.sorted()
+			.distinct()
+			.toArray());
+	}
+
+	/**
+	 * @return the dense index of the item, or -1 if no recipe uses it
+	 */
+	public int indexOf(int itemId)
+	{
+		int index = Arrays.binarySearch(itemIds, itemId);
+		return index < 0 ? -1 : index;
+	}
+
+	public int getItemId(int index)
+	{
+		return itemIds[index];
+	}
+
+	public int size()
+	{
+		return itemIds.length;
+	}
+
+	/**
+	 * @return the number of longs in a bitset over every index
+	 */
+	public int getWordCount()
+	{
+		return (itemIds.length + Long.SIZE - 1) / Long.SIZE;
+	}
+}
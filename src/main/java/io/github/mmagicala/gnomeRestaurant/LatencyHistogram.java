@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import lombok.Getter;
+
+/**
+ * Histogram of durations in nanoseconds. Buckets are an eighth of a power of two wide, so percentiles are
+ * within 12.5% of the recorded durations, and recording one does not allocate.
+ */
+public class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	private final long[] bucketCounts = new long[BUCKET_COUNT];
+
+	@Getter
+	private long count;
+
+	@Getter
+	private long max;
+
+	private long total;
+
+	public void record(long nanos)
+	{
+		nanos = Math.max(nanos, 0);
+
+		bucketCounts[getBucketIndex(nanos)]++;
+		count++;
+		total += nanos;
+		max = Math.max(max, nanos);
+	}
+
+	public long getMean()
+	{
+		return count == 0 ? 0 : total / count;
+	}
+
+	/**
+	 * @return the upper bound of the bucket holding the given percentile, between 0 and 1
+	 */
+	public long getPercentile(double percentile)
+	{
+		long rank = Math.max(1, (long) Math.ceil(percentile * count));
+		long seen = 0;
+
+		for (int i = 0; i < BUCKET_COUNT && count > 0; i++)
+		{
+			seen += bucketCounts[i];
+
+			if (seen >= rank)
+			{
+				return Math.min(getBucketUpperBound(i), max);
+			}
+		}
+		return 0;
+	}
+
+	public void reset()
+	{
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			bucketCounts[i] = 0;
+		}
+
+		count = max = total = 0;
+	}
+
+	// Durations below 16 ns get a bucket each, longer ones are split by their top four bits
+
+	private static int getBucketIndex(long nanos)
+	{
+		if (nanos < SUB_BUCKET_COUNT)
+		{
+			return (int) nanos;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	private static long getBucketUpperBound(int bucketIndex)
+	{
+		if (bucketIndex < SUB_BUCKET_COUNT)
+		{
+			return bucketIndex;
+		}
+
+		int shift = bucketIndex / SUB_BUCKET_COUNT - 1;
+		long lowerBound = (long) (SUB_BUCKET_COUNT + bucketIndex % SUB_BUCKET_COUNT) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+}
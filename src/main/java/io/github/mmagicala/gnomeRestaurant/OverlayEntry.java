@@ -27,24 +27,42 @@
 package io.github.mmagicala.gnomeRestaurant;
 
 import lombok.Getter;
-import lombok.Setter;
 
 public class OverlayEntry
 {
 	@Getter
-	private String itemName;
+	private final int itemId;
 
 	@Getter
-	@Setter
-	private int inventoryCount;
+	private final String itemName;
 
 	@Getter
-	private int requiredCount;
+	private final int inventoryCount;
 
-	public OverlayEntry(String itemName, int inventoryCount, int requiredCount)
+	@Getter
+	private final int equipmentCount;
+
+	@Getter
+	private final int bankCount;
+
+	@Getter
+	private final int requiredCount;
+
+	public OverlayEntry(int itemId, String itemName, int inventoryCount, int equipmentCount, int bankCount, int requiredCount)
 	{
+		this.itemId = itemId;
 		this.itemName = itemName;
 		this.inventoryCount = inventoryCount;
+		this.equipmentCount = equipmentCount;
+		this.bankCount = bankCount;
 		this.requiredCount = requiredCount;
 	}
+
+	/**
+	 * @return how many are needed from outside the inventory, equipment and bank
+	 */
+	public int getMissingCount()
+	{
+		return Math.max(requiredCount - inventoryCount - equipmentCount - bankCount, 0);
+	}
 }
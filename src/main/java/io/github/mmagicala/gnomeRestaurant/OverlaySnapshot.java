@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * Immutable state shown by the overlay. The plugin builds a new snapshot on the client thread and
+ * publishes it through a single volatile reference, so rendering never sees a half-built table.
+ */
+public class OverlaySnapshot
+{
+	@Getter
+	private final int stageNodeIndex;
+
+	@Getter
+	private final String stageDirections;
+
+	// Rows are in stage order
+
+	@Getter
+	private final List<OverlayEntry> currentItems;
+
+	@Getter
+	private final List<OverlayEntry> futureItems;
+
+	// Empty when session stats are hidden
+
+	@Getter
+	private final List<SessionStatLine> sessionStatLines;
+
+	public OverlaySnapshot(int stageNodeIndex, String stageDirections, List<OverlayEntry> currentItems, List<OverlayEntry> futureItems,
+		List<SessionStatLine> sessionStatLines)
+	{
+		this.stageNodeIndex = stageNodeIndex;
+		this.stageDirections = stageDirections;
+		this.currentItems = Collections.unmodifiableList(currentItems);
+		this.futureItems = Collections.unmodifiableList(futureItems);
+		this.sessionStatLines = Collections.unmodifiableList(sessionStatLines);
+	}
+
+	public OverlaySnapshot withSessionStatLines(List<SessionStatLine> sessionStatLines)
+	{
+		return new OverlaySnapshot(stageNodeIndex, stageDirections, currentItems, futureItems, sessionStatLines);
+	}
+
+	/**
+	 * @param updatedSnapshot the container snapshot that was just updated, only the rows of the items whose
+	 * count changed in that update are recounted
+	 * @return a snapshot with those rows recounted, or this snapshot if none of the items has a row. Other rows
+	 * are shared with this snapshot.
+	 */
+	public OverlaySnapshot withItemCounts(ContainerSnapshots containerSnapshots, InventorySnapshot updatedSnapshot)
+	{
+		List<OverlayEntry> recountedCurrentItems = currentItems;
+		List<OverlayEntry> recountedFutureItems = futureItems;
+
+		for (int i = 0; i < updatedSnapshot.getChangedItemCount(); i++)
+		{
+			int itemId = updatedSnapshot.getChangedItemId(i);
+			recountedCurrentItems = recount(currentItems, recountedCurrentItems, itemId, containerSnapshots);
+			recountedFutureItems = recount(futureItems, recountedFutureItems, itemId, containerSnapshots);
+		}
+
+		if (recountedCurrentItems == currentItems && recountedFutureItems == futureItems)
+		{
+			return this;
+		}
+		return new OverlaySnapshot(stageNodeIndex, stageDirections, recountedCurrentItems, recountedFutureItems, sessionStatLines);
+	}
+
+	/**
+	 * @param entries the rows of this snapshot
+	 * @param recountedEntries the rows recounted so far, the same list until a row has been recounted
+	 */
+	private static List<OverlayEntry> recount(List<OverlayEntry> entries, List<OverlayEntry> recountedEntries, int itemId,
+		ContainerSnapshots containerSnapshots)
+	{
+		for (int i = 0; i < recountedEntries.size(); i++)
+		{
+			OverlayEntry entry = recountedEntries.get(i);
+
+			if (entry.getItemId() == itemId)
+			{
+				if (recountedEntries == entries)
+				{
+					recountedEntries = new ArrayList<>(entries);
+				}
+				recountedEntries.set(i, containerSnapshots.createOverlayEntry(itemId, entry.getItemName(), entry.getRequiredCount()));
+			}
+		}
+		return recountedEntries;
+	}
+}
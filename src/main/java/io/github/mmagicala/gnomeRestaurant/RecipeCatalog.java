@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import io.github.mmagicala.gnomeRestaurant.itemOrder.BakedOrder;
+import io.github.mmagicala.gnomeRestaurant.itemOrder.BakedToppedOrder;
+import io.github.mmagicala.gnomeRestaurant.itemOrder.CocktailOrder;
+import io.github.mmagicala.gnomeRestaurant.itemOrder.HeatedCocktailOrder;
+import io.github.mmagicala.gnomeRestaurant.itemOrder.ItemOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the orders and recipients from the tables generated from src/main/recipes/recipes.txt
+ */
+final class RecipeCatalog
+{
+	// Order kinds, as named in the catalog
+
+	static final int BAKED = 0;
+	static final int BAKED_TOPPED = 1;
+	static final int COCKTAIL = 2;
+	static final int HEATED_COCKTAIL = 3;
+
+	private RecipeCatalog()
+	{
+	}
+
+	/**
+	 * @return every order, by the name Gianne jnr. gives it
+	 */
+	static Map<String, ItemOrder> createItemOrders()
+	{
+		Map<String, ItemOrder> itemOrders = new HashMap<>();
+
+		for (int order = 0; order < RecipeTables.ORDER_NAMES.length; order++)
+		{
+			itemOrders.put(RecipeTables.ORDER_NAMES[order], createItemOrder(order));
+		}
+		return itemOrders;
+	}
+
+	/**
+	 * @return the recipients of easy orders, mapping printed names to in-game names, or null where they are the same
+	 */
+	static Map<String, String> createEasyRecipients()
+	{
+		return createRecipients(RecipeTables.EASY_RECIPIENT_NAMES, RecipeTables.EASY_RECIPIENT_REAL_NAMES);
+	}
+
+	/**
+	 * @return the recipients of hard orders, mapping printed names to in-game names, or null where they are the same
+	 */
+	static Map<String, String> createHardRecipients()
+	{
+		return createRecipients(RecipeTables.HARD_RECIPIENT_NAMES, RecipeTables.HARD_RECIPIENT_REAL_NAMES);
+	}
+
+	static String getOrderName(int order)
+	{
+		return RecipeTables.ORDER_NAMES[order];
+	}
+
+	/**
+	 * @return the in-game name of a recipient, counting easy recipients first
+	 */
+	static String getRecipientRealName(int recipient)
+	{
+		int easyCount = RecipeTables.EASY_RECIPIENT_NAMES.length;
+
+		if (recipient < easyCount)
+		{
+			return realName(RecipeTables.EASY_RECIPIENT_NAMES[recipient], RecipeTables.EASY_RECIPIENT_REAL_NAMES[recipient]);
+		}
+		return realName(RecipeTables.HARD_RECIPIENT_NAMES[recipient - easyCount], RecipeTables.HARD_RECIPIENT_REAL_NAMES[recipient - easyCount]);
+	}
+
+	/**
+	 * @return the in-game names of every recipient, easy recipients first
+	 */
+	static List<String> getRecipientRealNames()
+	{
+		int count = RecipeTables.EASY_RECIPIENT_NAMES.length + RecipeTables.HARD_RECIPIENT_NAMES.length;
+		List<String> realNames = new ArrayList<>(count);
+
+		for (int recipient = 0; recipient < count; recipient++)
+		{
+			realNames.add(getRecipientRealName(recipient));
+		}
+		return realNames;
+	}
+
+	private static String realName(String printedName, String realName)
+	{
+		return realName == null ? printedName : realName;
+	}
+
+	private static ItemOrder createItemOrder(int order)
+	{
+		int[] itemIds = RecipeTables.ORDER_ITEM_IDS[order];
+		ArrayList<CookingItem> ingredients = createIngredients(RecipeTables.ORDER_INGREDIENTS[order]);
+
+		switch (RecipeTables.ORDER_KINDS[order])
+		{
+			case BAKED:
+				return new BakedOrder(RecipeTables.ORDER_TYPES[order], itemIds[0], itemIds[1], ingredients);
+			case BAKED_TOPPED:
+				return new BakedToppedOrder(RecipeTables.ORDER_TYPES[order], itemIds[0], itemIds[1], itemIds[2], ingredients);
+			case COCKTAIL:
+				return new CocktailOrder(itemIds[0], itemIds[1], ingredients);
+			case HEATED_COCKTAIL:
+				return new HeatedCocktailOrder(RecipeTables.HEAT_TIMINGS[order], itemIds[0], itemIds[1], itemIds[2], itemIds[3], ingredients);
+			default:
+				throw new IllegalStateException("Unknown order kind for " + RecipeTables.ORDER_NAMES[order]);
+		}
+	}
+
+	// Ingredients are stored as item ID, count and topping flag triples
+
+	private static ArrayList<CookingItem> createIngredients(int[] table)
+	{
+		ArrayList<CookingItem> ingredients = new ArrayList<>(table.length / 3);
+
+		for (int i = 0; i < table.length; i += 3)
+		{
+			ingredients.add(new CookingItem(table[i], table[i + 1], table[i + 2] != 0));
+		}
+		return ingredients;
+	}
+
+	private static Map<String, String> createRecipients(String[] printedNames, String[] realNames)
+	{
+		Map<String, String> recipients = new HashMap<>();
+
+		for (int i = 0; i < printedNames.length; i++)
+		{
+			recipients.put(printedNames[i], realNames[i]);
+		}
+		return recipients;
+	}
+}
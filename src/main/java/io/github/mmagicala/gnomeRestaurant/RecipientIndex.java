@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.runelite.api.NPC;
+
+/**
+ * Keeps track of which delivery recipients are loaded, from NPC spawn and despawn events. Each NPC ID is
+ * matched to a recipient by name the first time it spawns, after which spawns and despawns are plain int
+ * lookups, as is finding the loaded NPC for a recipient.
+ */
+public class RecipientIndex
+{
+	public static final int NOT_A_RECIPIENT = -1;
+
+	// Recipient of each NPC ID: 0 if the ID hasn't been seen, NOT_A_RECIPIENT, or the recipient index plus one
+
+	private static final byte UNSEEN = 0;
+
+	private final Map<String, Integer> recipientIndices = new HashMap<>();
+	private final NPC[] loadedRecipients;
+	private byte[] recipientsByNpcId = new byte[16384];
+
+	/**
+	 * @param realNames the in-game names of every recipient, at most 127
+	 */
+	public RecipientIndex(List<String> realNames)
+	{
+		if (realNames.size() > Byte.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("Too many recipients: " + realNames.size());
+		}
+
+		for (String realName : realNames)
+		{
+			recipientIndices.putIfAbsent(realName, recipientIndices.size());
+		}
+
+		loadedRecipients = new NPC[recipientIndices.size()];
+	}
+
+	/**
+	 * @return the index of the recipient with this in-game name, or NOT_A_RECIPIENT
+	 */
+	public int getRecipientIndex(String realName)
+	{
+		return recipientIndices.getOrDefault(realName, NOT_A_RECIPIENT);
+	}
+
+	/**
+	 * @return the loaded NPC of a recipient, or null if it hasn't spawned
+	 */
+	public NPC getLoadedRecipient(int recipientIndex)
+	{
+		return recipientIndex == NOT_A_RECIPIENT ? null : loadedRecipients[recipientIndex];
+	}
+
+	/**
+	 * Add the NPCs that were loaded before we saw them spawn
+	 */
+	public void seed(NPC[] cachedNPCs)
+	{
+		for (NPC npc : cachedNPCs)
+		{
+			if (npc != null)
+			{
+				onNpcSpawned(npc);
+			}
+		}
+	}
+
+	/**
+	 * @return the recipient index of the NPC, or NOT_A_RECIPIENT
+	 */
+	public int onNpcSpawned(NPC npc)
+	{
+		int recipientIndex = getRecipientIndex(npc);
+
+		if (recipientIndex != NOT_A_RECIPIENT)
+		{
+			loadedRecipients[recipientIndex] = npc;
+		}
+		return recipientIndex;
+	}
+
+	/**
+	 * @return the recipient index of the NPC, or NOT_A_RECIPIENT
+	 */
+	public int onNpcDespawned(NPC npc)
+	{
+		int recipientIndex = getRecipientIndex(npc);
+
+		if (recipientIndex != NOT_A_RECIPIENT && loadedRecipients[recipientIndex] == npc)
+		{
+			loadedRecipients[recipientIndex] = null;
+		}
+		return recipientIndex;
+	}
+
+	/**
+	 * Forget the loaded NPCs, keeping the recipients learned for each NPC ID
+	 */
+	public void clear()
+	{
+		Arrays.fill(loadedRecipients, null);
+	}
+
+	private int getRecipientIndex(NPC npc)
+	{
+		int npcId = npc.getId();
+
+		if (npcId < 0)
+		{
+			return NOT_A_RECIPIENT;
+		}
+
+		if (npcId >= recipientsByNpcId.length)
+		{
+			recipientsByNpcId = Arrays.copyOf(recipientsByNpcId, Integer.highestOneBit(npcId) * 2);
+		}
+
+		byte recipient = recipientsByNpcId[npcId];
+
+		if (recipient == UNSEEN)
+		{
+			// Some NPCs have no name until they are transformed, so only remember IDs that have one
+
+			String name = npc.getName();
+
+			if (name == null)
+			{
+				return NOT_A_RECIPIENT;
+			}
+
+			int recipientIndex = getRecipientIndex(name);
+			recipient = recipientIndex == NOT_A_RECIPIENT ? NOT_A_RECIPIENT : (byte) (recipientIndex + 1);
+			recipientsByNpcId[npcId] = recipient;
+		}
+
+		return recipient == NOT_A_RECIPIENT ? NOT_A_RECIPIENT : recipient - 1;
+	}
+}
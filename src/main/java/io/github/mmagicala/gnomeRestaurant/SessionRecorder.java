@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import javax.inject.Inject;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.NPC;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.client.eventbus.Subscribe;
+
+/**
+ * Records the events the plugin reacts to into a compact binary log, which can be replayed headless.
+ * A log is a header followed by records, each a type byte and a payload of variable-length integers and UTF strings.
+ * The plugin registers it on the event bus while recording and passes it the dialogs and game ticks it reads.
+ */
+@Slf4j
+public class SessionRecorder
+{
+	public static final int MAGIC = 0x474E5253;
+	public static final int VERSION = 1;
+
+	// Record types
+
+	public static final int GAME_TICK = 0;
+	public static final int DIALOG = 1;
+	public static final int ITEM_CONTAINER = 2;
+	public static final int VARBIT = 3;
+	public static final int NPC_SPAWNED = 4;
+	public static final int NPC_DESPAWNED = 5;
+
+	private static final InventoryID[] RECORDED_CONTAINERS = {InventoryID.INVENTORY, InventoryID.BANK, InventoryID.EQUIPMENT};
+
+	private final Client client;
+
+	private DataOutputStream out;
+	private int recordedDeliveryVarbit;
+
+	@Getter
+	private File file;
+
+	@Inject
+	public SessionRecorder(Client client)
+	{
+		this.client = client;
+	}
+
+	public boolean isRecording()
+	{
+		return out != null;
+	}
+
+	public void start(File file) throws IOException
+	{
+		stop();
+
+		File directory = file.getParentFile();
+
+		if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new IOException("Could not create " + directory);
+		}
+
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		this.file = file;
+
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+
+		// Begin with the current state so the log can be replayed on its own
+
+		recordedDeliveryVarbit = client.getVarbitValue(GnomeRestaurantPlugin.DELIVERY_VARBIT_ID);
+		recordVarbit(GnomeRestaurantPlugin.DELIVERY_VARBIT_ID, recordedDeliveryVarbit);
+
+		for (InventoryID inventoryID : RECORDED_CONTAINERS)
+		{
+			ItemContainer itemContainer = client.getItemContainer(inventoryID);
+
+			if (itemContainer != null)
+			{
+				recordItemContainer(inventoryID.getId(), itemContainer);
+			}
+		}
+	}
+
+	@Subscribe
+	public void onNpcSpawned(NpcSpawned event)
+	{
+		recordNpc(true, event.getNpc());
+	}
+
+	@Subscribe
+	public void onNpcDespawned(NpcDespawned event)
+	{
+		recordNpc(false, event.getNpc());
+	}
+
+	@Subscribe
+	public void onVarbitChanged(VarbitChanged event)
+	{
+		int value = client.getVarbitValue(GnomeRestaurantPlugin.DELIVERY_VARBIT_ID);
+
+		if (value != recordedDeliveryVarbit)
+		{
+			recordedDeliveryVarbit = value;
+			recordVarbit(GnomeRestaurantPlugin.DELIVERY_VARBIT_ID, value);
+		}
+	}
+
+	@Subscribe
+	public void onItemContainerChanged(ItemContainerChanged event)
+	{
+		for (InventoryID inventoryID : RECORDED_CONTAINERS)
+		{
+			if (event.getContainerId() == inventoryID.getId())
+			{
+				recordItemContainer(event.getContainerId(), event.getItemContainer());
+				return;
+			}
+		}
+	}
+
+	public void stop()
+	{
+		if (out == null)
+		{
+			return;
+		}
+
+		try
+		{
+			out.close();
+		}
+		catch (IOException e)
+		{
+			log.warn("Could not close session log {}", file, e);
+		}
+
+		out = null;
+	}
+
+	public void recordGameTick()
+	{
+		if (out == null)
+		{
+			return;
+		}
+
+		try
+		{
+			out.writeByte(GAME_TICK);
+		}
+		catch (IOException e)
+		{
+			fail(e);
+		}
+	}
+
+	/**
+	 * Record a Gianne jnr. dialog that the next game tick will read
+	 */
+	public void recordDialog(String text)
+	{
+		if (out == null)
+		{
+			return;
+		}
+
+		try
+		{
+			out.writeByte(DIALOG);
+			out.writeUTF(text);
+		}
+		catch (IOException e)
+		{
+			fail(e);
+		}
+	}
+
+	public void recordItemContainer(int containerId, ItemContainer itemContainer)
+	{
+		if (out == null)
+		{
+			return;
+		}
+
+		try
+		{
+			Item[] items = itemContainer == null ? new Item[0] : itemContainer.getItems();
+
+			out.writeByte(ITEM_CONTAINER);
+			writeVarInt(containerId);
+			writeVarInt(items.length);
+
+			for (Item item : items)
+			{
+				// Empty slots have an ID of -1
+
+				writeVarInt(item.getId() + 1);
+				writeVarInt(item.getQuantity());
+			}
+		}
+		catch (IOException e)
+		{
+			fail(e);
+		}
+	}
+
+	public void recordVarbit(int varbitId, int value)
+	{
+		if (out == null)
+		{
+			return;
+		}
+
+		try
+		{
+			out.writeByte(VARBIT);
+			writeVarInt(varbitId);
+			writeVarInt(value);
+		}
+		catch (IOException e)
+		{
+			fail(e);
+		}
+	}
+
+	public void recordNpc(boolean spawned, NPC npc)
+	{
+		if (out == null)
+		{
+			return;
+		}
+
+		try
+		{
+			out.writeByte(spawned ? NPC_SPAWNED : NPC_DESPAWNED);
+			writeVarInt(npc.getIndex());
+			writeVarInt(npc.getId());
+			out.writeUTF(npc.getName() == null ? "" : npc.getName());
+		}
+		catch (IOException e)
+		{
+			fail(e);
+		}
+	}
+
+	// Unsigned LEB128
+
+	private void writeVarInt(int value) throws IOException
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private void fail(IOException e)
+	{
+		log.warn("Stopped recording to {}", file, e);
+		stop();
+	}
+}
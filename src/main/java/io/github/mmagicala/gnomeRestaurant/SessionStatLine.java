@@ -26,20 +26,19 @@
 
 package io.github.mmagicala.gnomeRestaurant;
 
-public enum MinigameStage
+import lombok.Getter;
+
+public class SessionStatLine
 {
-	CREATE_MOULD("Create the mould"),
-	BAKE_MOULD("Bake the mould"),
-	COMBINE_INGREDIENTS("Apply 1st ingredients"),
-	POUR("Pour into cocktail glass"),
-	TOP_WITH_INGREDIENTS("Apply 2nd ingredients"),
-	HEAT_AGAIN("Heat item again"),
-	DELIVER("Deliver item");
+	@Getter
+	private final String label;
 
-	String directions;
+	@Getter
+	private final String value;
 
-	MinigameStage(String directions)
+	public SessionStatLine(String label, String value)
 	{
-		this.directions = directions;
+		this.label = label;
+		this.value = value;
 	}
 }
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * Running aggregates over the orders of a session. Every aggregate has a fixed size, so memory stays the same
+ * however long the session runs: durations go into histograms and the latest deliveries into a ring buffer.
+ * Times are System.nanoTime() readings.
+ */
+public class SessionStats
+{
+	private static final long NANOS_PER_HOUR = 3_600_000_000_000L;
+
+	// Latest deliveries, used for the recent delivery rate
+
+	private static final int RECENT_DELIVERY_COUNT = 32;
+
+	private final long[] recentDeliveryNanos = new long[RECENT_DELIVERY_COUNT];
+
+	// Start of the first order, or -1 before it
+
+	private long sessionStartNanos = -1;
+
+	@Getter
+	private int easyDeliveries, hardDeliveries, deliveriesInTime, abandonedOrders;
+
+	// Time spent in each stage and from start to delivery for each order type
+
+	private final LatencyHistogram[] stageDurations = new LatencyHistogram[MinigameStage.values().length];
+	private final LatencyHistogram[] orderDurations = new LatencyHistogram[ItemOrderType.values().length];
+
+	// Order in progress
+
+	private boolean isOrderActive;
+	private boolean isHardOrder;
+	private ItemOrderType orderType;
+	private long orderStartNanos;
+	private MinigameStage stage;
+	private long stageStartNanos;
+
+	// Bumped on every change, so the overlay rows only need rebuilding when it moves
+
+	@Getter
+	private int version;
+
+	public SessionStats()
+	{
+		for (int i = 0; i < stageDurations.length; i++)
+		{
+			stageDurations[i] = new LatencyHistogram();
+		}
+
+		for (int i = 0; i < orderDurations.length; i++)
+		{
+			orderDurations[i] = new LatencyHistogram();
+		}
+	}
+
+	public void startOrder(ItemOrderType orderType, boolean isHardOrder, long nanos)
+	{
+		if (sessionStartNanos < 0)
+		{
+			sessionStartNanos = nanos;
+		}
+
+		this.isOrderActive = true;
+		this.isHardOrder = isHardOrder;
+		this.orderType = orderType;
+		this.orderStartNanos = nanos;
+		this.stage = null;
+		version++;
+	}
+
+	/**
+	 * Close the time spent in the previous stage. The stage can move back as well as forward.
+	 */
+	public void enterStage(MinigameStage stage, long nanos)
+	{
+		if (!isOrderActive || stage == this.stage)
+		{
+			return;
+		}
+
+		if (this.stage != null)
+		{
+			stageDurations[this.stage.ordinal()].record(nanos - stageStartNanos);
+		}
+
+		this.stage = stage;
+		stageStartNanos = nanos;
+		version++;
+	}
+
+	/**
+	 * @param delivered false if the order was replaced or the plugin stopped tracking it
+	 */
+	public void endOrder(boolean delivered, long nanos)
+	{
+		if (!isOrderActive)
+		{
+			return;
+		}
+
+		isOrderActive = false;
+		version++;
+
+		if (!delivered)
+		{
+			abandonedOrders++;
+			return;
+		}
+
+		if (stage != null)
+		{
+			stageDurations[stage.ordinal()].record(nanos - stageStartNanos);
+		}
+
+		long duration = nanos - orderStartNanos;
+		orderDurations[orderType.ordinal()].record(duration);
+
+		if (isHardOrder)
+		{
+			hardDeliveries++;
+		}
+		else
+		{
+			easyDeliveries++;
+		}
+
+		long timeLimitNanos = (isHardOrder ? GnomeRestaurantPlugin.HARD_ORDER_SECONDS : GnomeRestaurantPlugin.EASY_ORDER_SECONDS) * 1_000_000_000L;
+
+		if (duration <= timeLimitNanos)
+		{
+			deliveriesInTime++;
+		}
+
+		recentDeliveryNanos[(getDeliveries() - 1) % RECENT_DELIVERY_COUNT] = nanos;
+	}
+
+	public int getDeliveries()
+	{
+		return easyDeliveries + hardDeliveries;
+	}
+
+	/**
+	 * @return deliveries per hour since the first order of the session
+	 */
+	public double getDeliveriesPerHour(long nanos)
+	{
+		if (sessionStartNanos < 0 || nanos <= sessionStartNanos)
+		{
+			return 0;
+		}
+		return getDeliveries() * (double) NANOS_PER_HOUR / (nanos - sessionStartNanos);
+	}
+
+	/**
+	 * @return deliveries per hour between the oldest and newest of the latest deliveries, or 0 with fewer than two
+	 */
+	public double getRecentDeliveriesPerHour()
+	{
+		int count = Math.min(getDeliveries(), RECENT_DELIVERY_COUNT);
+
+		if (count < 2)
+		{
+			return 0;
+		}
+
+		long newest = recentDeliveryNanos[(getDeliveries() - 1) % RECENT_DELIVERY_COUNT];
+		long oldest = recentDeliveryNanos[(getDeliveries() - count) % RECENT_DELIVERY_COUNT];
+		return newest == oldest ? 0 : (count - 1) * (double) NANOS_PER_HOUR / (newest - oldest);
+	}
+
+	public LatencyHistogram getStageDurations(MinigameStage stage)
+	{
+		return stageDurations[stage.ordinal()];
+	}
+
+	public LatencyHistogram getOrderDurations(ItemOrderType orderType)
+	{
+		return orderDurations[orderType.ordinal()];
+	}
+
+	/**
+	 * @return the overlay rows: delivery rates, then the times of each order type and stage seen so far
+	 */
+	public List<SessionStatLine> describe(long nanos)
+	{
+		List<SessionStatLine> lines = new ArrayList<>();
+		int deliveries = getDeliveries();
+
+		String rate = formatRate(getDeliveriesPerHour(nanos));
+
+		if (deliveries >= 2)
+		{
+			rate += " (last " + Math.min(deliveries, RECENT_DELIVERY_COUNT) + ": " + formatRate(getRecentDeliveriesPerHour()) + ")";
+		}
+
+		lines.add(new SessionStatLine("Deliveries/hr", rate));
+		lines.add(new SessionStatLine("Easy / hard", easyDeliveries + " / " + hardDeliveries));
+
+		if (deliveries > 0)
+		{
+			lines.add(new SessionStatLine("Beat timer", deliveriesInTime * 100 / deliveries + "%"));
+		}
+
+		for (ItemOrderType orderType : ItemOrderType.values())
+		{
+			addDurationLine(lines, capitalize(orderType.name()), orderDurations[orderType.ordinal()]);
+		}
+
+		for (MinigameStage stage : MinigameStage.values())
+		{
+			addDurationLine(lines, stage.directions, stageDurations[stage.ordinal()]);
+		}
+		return lines;
+	}
+
+	private static void addDurationLine(List<SessionStatLine> lines, String label, LatencyHistogram histogram)
+	{
+		if (histogram.getCount() > 0)
+		{
+			lines.add(new SessionStatLine(label, formatDuration(histogram.getMean()) + ", p90 " + formatDuration(histogram.getPercentile(0.90))));
+		}
+	}
+
+	// Rows are rebuilt on every stage change, so these avoid String.format
+
+	private static String formatRate(double perHour)
+	{
+		long tenths = Math.round(perHour * 10);
+		return tenths / 10 + "." + tenths % 10;
+	}
+
+	private static String formatDuration(long nanos)
+	{
+		long seconds = nanos / 1_000_000_000L;
+		return seconds / 60 + (seconds % 60 < 10 ? ":0" : ":") + seconds % 60;
+	}
+
+	private static String capitalize(String name)
+	{
+		return name.charAt(0) + name.substring(1).toLowerCase();
+	}
+
+	public void reset()
+	{
+		sessionStartNanos = isOrderActive ? orderStartNanos : -1;
+		easyDeliveries = hardDeliveries = deliveriesInTime = abandonedOrders = 0;
+
+		for (LatencyHistogram histogram : stageDurations)
+		{
+			histogram.reset();
+		}
+
+		for (LatencyHistogram histogram : orderDurations)
+		{
+			histogram.reset();
+		}
+		version++;
+	}
+}
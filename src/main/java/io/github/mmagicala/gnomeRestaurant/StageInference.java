@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+/**
+ * Infers the current stage from which produced items are held. Each item change is a single reverse
+ * index lookup, and the stage follows the inventory both forwards and backwards.
+ */
+public class StageInference
+{
+	private StagePlan stagePlan;
+
+	// Bit i is set while the item produced for stage i is held
+
+	private int heldStages;
+
+	public void reset(StagePlan stagePlan)
+	{
+		this.stagePlan = stagePlan;
+		heldStages = 0;
+	}
+
+	/**
+	 * @return true if the item is produced by one of the plan's stages
+	 */
+	public boolean onItemChanged(int itemId, boolean held)
+	{
+		int stageIndex = stagePlan.getStageIndex(itemId);
+
+		if (stageIndex < 0)
+		{
+			return false;
+		}
+
+		if (held)
+		{
+			heldStages |= 1 << stageIndex;
+		}
+		else
+		{
+			heldStages &= ~(1 << stageIndex);
+		}
+		return true;
+	}
+
+	/**
+	 * @return the latest stage whose produced item is held, or the first stage if none are
+	 */
+	public int getCurrentStageIndex()
+	{
+		return heldStages == 0 ? 0 : Integer.SIZE - 1 - Integer.numberOfLeadingZeros(heldStages);
+	}
+}
@@ -27,6 +27,8 @@
 package io.github.mmagicala.gnomeRestaurant;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import lombok.Getter;
 
 public class StageNode
@@ -36,11 +38,16 @@ public class StageNode
 	@Getter
 	private final int producedItemId;
 	@Getter
-	private final ArrayList<CookingItem> otherRequiredItems;
+	private final List<CookingItem> otherRequiredItems;
+
+	// Items needed while this is the current stage, i.e. the other required items and the item produced by the previous stage
+
+	@Getter
+	private final List<CookingItem> currentItems;
 
 	// First node, no produced item before it
 
-	public StageNode(MinigameStage stage, ArrayList<CookingItem> otherRequiredItems)
+	public StageNode(MinigameStage stage, List<CookingItem> otherRequiredItems)
 	{
 		this(stage, otherRequiredItems, -1);
 	}
@@ -49,13 +56,24 @@ public class StageNode
 
 	public StageNode(MinigameStage stage, int producedItemId)
 	{
-		this(stage, new ArrayList<>(), producedItemId);
+		this(stage, Collections.emptyList(), producedItemId);
 	}
 
-	public StageNode(MinigameStage stage, ArrayList<CookingItem> otherRequiredItems, int producedItemId)
+	public StageNode(MinigameStage stage, List<CookingItem> otherRequiredItems, int producedItemId)
 	{
 		this.stage = stage;
-		this.otherRequiredItems = otherRequiredItems;
+		this.otherRequiredItems = Collections.unmodifiableList(new ArrayList<>(otherRequiredItems));
 		this.producedItemId = producedItemId;
+
+		if (producedItemId == -1)
+		{
+			this.currentItems = this.otherRequiredItems;
+		}
+		else
+		{
+			ArrayList<CookingItem> items = new ArrayList<>(otherRequiredItems);
+			items.add(new CookingItem(producedItemId, 1));
+			this.currentItems = Collections.unmodifiableList(items);
+		}
 	}
 }
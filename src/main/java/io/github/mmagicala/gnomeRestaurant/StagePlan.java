@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import io.github.mmagicala.gnomeRestaurant.itemOrder.BakedOrder;
+import io.github.mmagicala.gnomeRestaurant.itemOrder.BakedToppedOrder;
+import io.github.mmagicala.gnomeRestaurant.itemOrder.CocktailOrder;
+import io.github.mmagicala.gnomeRestaurant.itemOrder.HeatedCocktailOrder;
+import io.github.mmagicala.gnomeRestaurant.itemOrder.ItemOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import net.runelite.api.ItemID;
+
+/**
+ * Immutable chain of stages for an order, compiled once so that accepting an order allocates nothing
+ */
+public class StagePlan
+{
+	@Getter
+	private final ItemOrder itemOrder;
+
+	@Getter
+	private final List<StageNode> stageNodes;
+
+	// Reverse index from produced item ID to stage index, sorted by item ID
+
+	private final int[] producedItemIds;
+	private final int[] producedItemStageIndices;
+
+	@Getter
+	private final ItemIndex itemIndex;
+
+	// Bitset over the item index of every item shown or tracked in any stage
+
+	private final long[] usedItemBits;
+
+	private StagePlan(ItemOrder itemOrder, List<StageNode> stageNodes, ItemIndex itemIndex)
+	{
+		if (stageNodes.size() > Integer.SIZE)
+		{
+			throw new IllegalArgumentException("Too many stages for " + itemOrder.getItemId());
+		}
+
+		this.itemOrder = itemOrder;
+		this.stageNodes = Collections.unmodifiableList(stageNodes);
+
+		// The first stage does not have a produced item
+
+		long[] entries = new long[stageNodes.size() - 1];
+
+		for (int i = 1; i < stageNodes.size(); i++)
+		{
+			entries[i - 1] = ((long) stageNodes.get(i).getProducedItemId() << Integer.SIZE) | i;
+		}
+
+		Arrays.sort(entries);
+
+		producedItemIds = new int[entries.length];
+		producedItemStageIndices = new int[entries.length];
+
+		for (int i = 0; i < entries.length; i++)
+		{
+			producedItemIds[i] = (int) (entries[i] >> Integer.SIZE);
+			producedItemStageIndices[i] = (int) entries[i];
+
+			if (i > 0 && producedItemIds[i] == producedItemIds[i - 1])
+			{
+				throw new IllegalArgumentException("Item " + producedItemIds[i] + " is produced by more than one stage");
+			}
+		}
+
+		this.itemIndex = itemIndex;
+		usedItemBits = new long[itemIndex.getWordCount()];
+
+		for (StageNode stageNode : stageNodes)
+		{
+			for (CookingItem cookingItem : stageNode.getCurrentItems())
+			{
+				int index = itemIndex.indexOf(cookingItem.getItemId());
+
+				if (index < 0)
+				{
+					throw new IllegalArgumentException("Item " + cookingItem.getItemId() + " is not in the item index");
+				}
+				usedItemBits[index >>> 6] |= 1L << index;
+			}
+		}
+	}
+
+	/**
+	 * @return the index of the stage that starts once the item is made, or -1 if no stage produces it
+	 */
+	public int getStageIndex(int producedItemId)
+	{
+		int i = Arrays.binarySearch(producedItemIds, producedItemId);
+		return i < 0 ? -1 : producedItemStageIndices[i];
+	}
+
+	/**
+	 * @param itemIndex the item's index in the plan's ItemIndex
+	 * @return true if the item is required or produced by any stage, so a change to its count can matter to the plan
+	 */
+	public boolean usesItem(int itemIndex)
+	{
+		return (usedItemBits[itemIndex >>> 6] & 1L << itemIndex) != 0;
+	}
+
+	public StageNode getStageNode(int index)
+	{
+		return stageNodes.get(index);
+	}
+
+	public int size()
+	{
+		return stageNodes.size();
+	}
+
+	/**
+	 * Compile a plan for every order, keyed by order name. The plans share one ItemIndex, so an item's
+	 * index can be looked up once and checked against any of them.
+	 */
+	public static Map<String, StagePlan> compileAll(Map<String, ItemOrder> itemOrders)
+	{
+		HashMap<String, List<StageNode>> stageNodeLists = new HashMap<>();
+
+		for (Map.Entry<String, ItemOrder> entry : itemOrders.entrySet())
+		{
+			stageNodeLists.put(entry.getKey(), createStageNodes(entry.getValue()));
+		}
+
+		ItemIndex itemIndex = ItemIndex.of(stageNodeLists.values());
+		HashMap<String, StagePlan> stagePlans = new HashMap<>();
+
+		for (Map.Entry<String, ItemOrder> entry : itemOrders.entrySet())
+		{
+			stagePlans.put(entry.getKey(), new StagePlan(entry.getValue(), stageNodeLists.get(entry.getKey()), itemIndex));
+		}
+
+		return Collections.unmodifiableMap(stagePlans);
+	}
+
+	/**
+	 * Compile a plan on its own, with an ItemIndex of just its items
+	 */
+	public static StagePlan compile(ItemOrder itemOrder)
+	{
+		List<StageNode> stageNodes = createStageNodes(itemOrder);
+		return new StagePlan(itemOrder, stageNodes, ItemIndex.of(Collections.singletonList(stageNodes)));
+	}
+
+	// Build a linear graph that links stages together, and define the items required to move to the next stage
+
+	private static List<StageNode> createStageNodes(ItemOrder itemOrder)
+	{
+		ArrayList<StageNode> stageNodes = new ArrayList<>();
+
+		// Ingredients
+
+		ArrayList<CookingItem> initialIngredients = itemOrder.getIngredients(false);
+		ArrayList<CookingItem> laterIngredients = itemOrder.getIngredients(true);
+
+		if (itemOrder.getItemOrderType() == ItemOrderType.COCKTAIL)
+		{
+			// Starting items
+
+			ArrayList<CookingItem> startingItems = new ArrayList<>(initialIngredients);
+			startingItems.add(new CookingItem(ItemID.COCKTAIL_SHAKER, 1));
+			stageNodes.add(new StageNode(MinigameStage.COMBINE_INGREDIENTS, startingItems));
+
+			ArrayList<CookingItem> requiredItemsToPour = new ArrayList<>();
+			requiredItemsToPour.add(new CookingItem(ItemID.COCKTAIL_GLASS, 1));
+
+			if (itemOrder instanceof HeatedCocktailOrder)
+			{
+				HeatedCocktailOrder heatedCocktailOrder = (HeatedCocktailOrder) itemOrder;
+
+				stageNodes.add(new StageNode(MinigameStage.POUR, requiredItemsToPour, heatedCocktailOrder.getShakerMixId()));
+
+				if (heatedCocktailOrder.getHeatTiming() == HeatTiming.BEFORE_ADDING_INGREDS)
+				{
+					stageNodes.add(new StageNode(MinigameStage.HEAT_AGAIN, heatedCocktailOrder.getPouredMixId()));
+					stageNodes.add(new StageNode(MinigameStage.TOP_WITH_INGREDIENTS, laterIngredients, heatedCocktailOrder.getSecondPouredMixId()));
+				}
+				else
+				{
+					stageNodes.add(new StageNode(MinigameStage.TOP_WITH_INGREDIENTS, laterIngredients, heatedCocktailOrder.getPouredMixId()));
+					stageNodes.add(new StageNode(MinigameStage.HEAT_AGAIN, heatedCocktailOrder.getSecondPouredMixId()));
+				}
+			}
+			else
+			{
+				requiredItemsToPour.addAll(laterIngredients);
+				stageNodes.add(new StageNode(MinigameStage.POUR, requiredItemsToPour, ((CocktailOrder) itemOrder).getShakerMixId()));
+			}
+		}
+		else
+		{
+			ArrayList<CookingItem> startingItems = new ArrayList<>();
+			startingItems.add(new CookingItem(ItemID.GIANNE_DOUGH, 1));
+			startingItems.add(new CookingItem(itemOrder.getItemOrderType().getToolId(), 1));
+
+			stageNodes.add(new StageNode(MinigameStage.CREATE_MOULD, startingItems));
+			stageNodes.add(new StageNode(MinigameStage.BAKE_MOULD, itemOrder.getItemOrderType().getMouldId()));
+			stageNodes.add(new StageNode(MinigameStage.COMBINE_INGREDIENTS, initialIngredients, itemOrder.getItemOrderType().getHalfBakedId()));
+
+			stageNodes.add(new StageNode(MinigameStage.HEAT_AGAIN, ((BakedOrder) itemOrder).getHalfMadeId()));
+
+			if (itemOrder instanceof BakedToppedOrder)
+			{
+				stageNodes.add(new StageNode(MinigameStage.TOP_WITH_INGREDIENTS, laterIngredients, ((BakedToppedOrder) itemOrder).getUnfinishedId()));
+			}
+		}
+
+		stageNodes.add(new StageNode(MinigameStage.DELIVER, Collections.singletonList(new CookingItem(ItemID.ALUFT_ALOFT_BOX, 1)), itemOrder.getItemId()));
+
+		return stageNodes;
+	}
+}
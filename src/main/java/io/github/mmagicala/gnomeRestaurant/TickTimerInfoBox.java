@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.awt.Color;
+import net.runelite.client.plugins.Plugin;
+import net.runelite.client.ui.overlay.infobox.InfoBox;
+
+/**
+ * Infobox counting down to a timeout on the tick wheel. It holds no time of its own, so it stays in step with
+ * the server tick and can be shown again for the next order instead of being replaced.
+ */
+public class TickTimerInfoBox extends InfoBox
+{
+	static final int GAME_TICK_MILLIS = 600;
+
+	// Text turns red in the last minute, like RuneLite's timers
+
+	private static final int WARNING_TICKS = 60_000 / GAME_TICK_MILLIS;
+
+	private final TickWheel tickWheel;
+	private final TickTimeout timeout;
+
+	public TickTimerInfoBox(Plugin plugin, TickWheel tickWheel, TickTimeout timeout)
+	{
+		super(null, plugin);
+		this.tickWheel = tickWheel;
+		this.timeout = timeout;
+	}
+
+	static int secondsToTicks(int seconds)
+	{
+		return seconds * 1000 / GAME_TICK_MILLIS;
+	}
+
+	@Override
+	public String getText()
+	{
+		int seconds = Math.max(tickWheel.getRemainingTicks(timeout), 0) * GAME_TICK_MILLIS / 1000;
+		return seconds / 60 + (seconds % 60 < 10 ? ":0" : ":") + seconds % 60;
+	}
+
+	@Override
+	public Color getTextColor()
+	{
+		return tickWheel.getRemainingTicks(timeout) < WARNING_TICKS ? Color.RED : Color.WHITE;
+	}
+
+	@Override
+	public boolean cull()
+	{
+		return !timeout.isScheduled();
+	}
+}
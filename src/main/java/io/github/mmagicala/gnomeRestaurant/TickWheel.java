@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+/**
+ * Hierarchical timing wheel advanced once per game tick. Each level has 64 slots and a slot of level n spans
+ * 64^n ticks. A timeout goes into the lowest level whose range covers it and falls down a level each time the
+ * wheel reaches its slot, so scheduling and cancelling are O(1) and a tick only visits the slots it passes,
+ * however many timeouts are waiting.
+ */
+public class TickWheel
+{
+	private static final int SLOT_BITS = 6;
+	private static final int SLOT_COUNT = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOT_COUNT - 1;
+
+	// Four levels reach 2^24 ticks ahead, about 116 days
+
+	private static final int LEVEL_COUNT = 4;
+	static final int MAX_DELAY = (1 << SLOT_BITS * LEVEL_COUNT) - 1;
+
+	// Circular lists of timeouts, each headed by a sentinel that is never scheduled
+
+	private final TickTimeout[] slots = new TickTimeout[LEVEL_COUNT * SLOT_COUNT];
+
+	// Read by infoboxes on the render thread
+
+	private volatile int currentTick;
+
+	public TickWheel()
+	{
+		for (int i = 0; i < slots.length; i++)
+		{
+			TickTimeout sentinel = new TickTimeout(null);
+			sentinel.previous = sentinel.next = sentinel;
+			slots[i] = sentinel;
+		}
+	}
+
+	public int getCurrentTick()
+	{
+		return currentTick;
+	}
+
+	/**
+	 * @return the ticks until a scheduled timeout expires
+	 */
+	public int getRemainingTicks(TickTimeout timeout)
+	{
+		return timeout.deadline - currentTick;
+	}
+
+	/**
+	 * Schedule a timeout to expire the given number of ticks from now, at least one, moving it if already scheduled
+	 */
+	public void schedule(TickTimeout timeout, int delayTicks)
+	{
+		if (delayTicks > MAX_DELAY)
+		{
+			throw new IllegalArgumentException("Timeouts can be at most " + MAX_DELAY + " ticks away: " + delayTicks);
+		}
+
+		cancel(timeout);
+		timeout.deadline = currentTick + Math.max(delayTicks, 1);
+		insert(timeout);
+	}
+
+	public void cancel(TickTimeout timeout)
+	{
+		if (timeout.isScheduled())
+		{
+			timeout.previous.next = timeout.next;
+			timeout.next.previous = timeout.previous;
+			timeout.previous = timeout.next = null;
+		}
+	}
+
+	/**
+	 * Move on to the next tick and run the timeouts due on it
+	 */
+	public void advance()
+	{
+		int tick = currentTick + 1;
+		currentTick = tick;
+
+		// Bring down the timeouts of every higher level slot the wheel has just reached
+
+		for (int level = 1; level < LEVEL_COUNT && (tick & (1 << SLOT_BITS * level) - 1) == 0; level++)
+		{
+			TickTimeout sentinel = slots[level * SLOT_COUNT + (tick >>> SLOT_BITS * level & SLOT_MASK)];
+
+			while (sentinel.next != sentinel)
+			{
+				TickTimeout timeout = sentinel.next;
+				cancel(timeout);
+				insert(timeout);
+			}
+		}
+
+		// Everything in this slot is due now, timeouts scheduled while expiring land in other slots
+
+		TickTimeout sentinel = slots[tick & SLOT_MASK];
+
+		while (sentinel.next != sentinel)
+		{
+			TickTimeout timeout = sentinel.next;
+			cancel(timeout);
+			timeout.expire();
+		}
+	}
+
+	private void insert(TickTimeout timeout)
+	{
+		int delay = timeout.deadline - currentTick;
+		int level = 0;
+
+		while (level < LEVEL_COUNT - 1 && delay >= 1 << SLOT_BITS * (level + 1))
+		{
+			level++;
+		}
+
+		TickTimeout sentinel = slots[level * SLOT_COUNT + (timeout.deadline >>> SLOT_BITS * level & SLOT_MASK)];
+		timeout.previous = sentinel.previous;
+		timeout.next = sentinel;
+		sentinel.previous.next = timeout;
+		sentinel.previous = timeout;
+	}
+}
@@ -27,21 +27,25 @@
 package io.github.mmagicala.gnomeRestaurant;
 
 import lombok.Getter;
-import net.runelite.api.ItemID;
 
-public enum ItemOrderType
+/**
+ * Work the plugin does on the client thread that HandlerStats keeps timings for
+ */
+public enum TimedHandler
 {
-	COCKTAIL(-1, -1, ItemID.COCKTAIL_SHAKER),
-	CRUNCHIES(ItemID.RAW_CRUNCHIES, ItemID.HALF_BAKED_CRUNCHY, ItemID.CRUNCHY_TRAY),
-	BATTA(ItemID.RAW_BATTA, ItemID.HALF_BAKED_BATTA, ItemID.BATTA_TIN),
-	GNOMEBOWL(ItemID.RAW_GNOMEBOWL, ItemID.HALF_BAKED_BOWL, ItemID.GNOMEBOWL_MOULD);
+	WIDGET_LOADED("onWidgetLoaded"),
+	GAME_TICK("onGameTick"),
+	ITEM_CONTAINER_CHANGED("onItemContainerChanged"),
+	VARBIT_CHANGED("onVarbitChanged"),
+	NPC_SPAWNED("onNpcSpawned"),
+	NPC_DESPAWNED("onNpcDespawned"),
+	OVERLAY_RENDER("Overlay render");
 
 	@Getter
-	private int mouldId, halfBakedId, toolId;
+	private final String displayName;
 
-	ItemOrderType(int mouldId, int halfBakedId, int toolId){
-		this.mouldId = mouldId;
-		this.halfBakedId = halfBakedId;
-		this.toolId = toolId;
+	TimedHandler(String displayName)
+	{
+		this.displayName = displayName;
 	}
-}
\ No newline at end of file
+}
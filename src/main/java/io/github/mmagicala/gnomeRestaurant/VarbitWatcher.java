@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.util.Arrays;
+import javax.inject.Inject;
+import net.runelite.api.Client;
+
+/**
+ * Caches the values of the varbits the plugin cares about so that only real changes of them are reported.
+ * Each varbit lives in a varp, and once a change of a watched varbit has shown which one, changes of other
+ * varps are skipped without reading anything.
+ */
+public class VarbitWatcher
+{
+	private static final int UNKNOWN_VARP = -1;
+
+	private final Client client;
+
+	private int[] varbitIds = new int[0];
+	private int[] values = new int[0];
+	private int[] varpIndices = new int[0];
+	private boolean[] changed = new boolean[0];
+
+	@Inject
+	public VarbitWatcher(Client client)
+	{
+		this.client = client;
+	}
+
+	public void watch(int varbitId)
+	{
+		if (indexOf(varbitId) != -1)
+		{
+			return;
+		}
+
+		int size = varbitIds.length + 1;
+		varbitIds = Arrays.copyOf(varbitIds, size);
+		values = Arrays.copyOf(values, size);
+		varpIndices = Arrays.copyOf(varpIndices, size);
+		changed = Arrays.copyOf(changed, size);
+
+		varbitIds[size - 1] = varbitId;
+		varpIndices[size - 1] = UNKNOWN_VARP;
+	}
+
+	/**
+	 * Take the current values as the baseline, without reporting them as changes
+	 */
+	public void sync()
+	{
+		for (int i = 0; i < varbitIds.length; i++)
+		{
+			values[i] = client.getVarbitValue(varbitIds[i]);
+			changed[i] = false;
+		}
+	}
+
+	/**
+	 * Read the watched varbits that could have been changed by a change of a varp
+	 * @param varpIndex The index of the varp that changed, or -1 if it isn't known
+	 * @return whether any watched varbit has a new value
+	 */
+	public boolean onVarbitChanged(int varpIndex)
+	{
+		boolean anyChanged = false;
+
+		for (int i = 0; i < varbitIds.length; i++)
+		{
+			changed[i] = false;
+
+			if (varpIndex != UNKNOWN_VARP && varpIndices[i] != UNKNOWN_VARP && varpIndices[i] != varpIndex)
+			{
+				continue;
+			}
+
+			int value = client.getVarbitValue(varbitIds[i]);
+
+			if (value != values[i])
+			{
+				values[i] = value;
+				changed[i] = true;
+				anyChanged = true;
+
+				if (varpIndex != UNKNOWN_VARP)
+				{
+					varpIndices[i] = varpIndex;
+				}
+			}
+		}
+		return anyChanged;
+	}
+
+	/**
+	 * @return whether the varbit changed in the last call to onVarbitChanged
+	 */
+	public boolean hasChanged(int varbitId)
+	{
+		int i = indexOf(varbitId);
+		return i != -1 && changed[i];
+	}
+
+	public int getValue(int varbitId)
+	{
+		int i = indexOf(varbitId);
+		return i == -1 ? 0 : values[i];
+	}
+
+	private int indexOf(int varbitId)
+	{
+		for (int i = 0; i < varbitIds.length; i++)
+		{
+			if (varbitIds[i] == varbitId)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * CatalogNames hashes names the same way RecipeCatalogGenerator built the tables, so every generated key
+ * has to be found again, both as a plain name and as a span of dialog text broken with <br>
+ */
+public class CatalogNamesTest
+{
+	@Test
+	public void findsEveryOrderName()
+	{
+		for (int order = 0; order < RecipeTables.ORDER_NAMES.length; order++)
+		{
+			String name = RecipeTables.ORDER_NAMES[order];
+
+			assertOrder(name, order, CatalogNames.lookup(name));
+			assertOrder(name, order, lookupInDialog(name));
+		}
+	}
+
+	@Test
+	public void findsEveryRecipientName()
+	{
+		int easyRecipients = RecipeTables.EASY_RECIPIENT_NAMES.length;
+
+		for (int i = 0; i < easyRecipients; i++)
+		{
+			String name = RecipeTables.EASY_RECIPIENT_NAMES[i];
+
+			assertRecipient(name, i, false, CatalogNames.lookup(name));
+			assertRecipient(name, i, false, lookupInDialog(name));
+		}
+
+		for (int i = 0; i < RecipeTables.HARD_RECIPIENT_NAMES.length; i++)
+		{
+			String name = RecipeTables.HARD_RECIPIENT_NAMES[i];
+
+			assertRecipient(name, easyRecipients + i, true, CatalogNames.lookup(name));
+			assertRecipient(name, easyRecipients + i, true, lookupInDialog(name));
+		}
+	}
+
+	@Test
+	public void missesNamesThatAreNotInTheCatalog()
+	{
+		for (String name : RecipeTables.ORDER_NAMES)
+		{
+			assertEquals(name + "s", CatalogNames.NOT_FOUND, CatalogNames.lookup(name + "s"));
+			assertEquals(name.substring(1), CatalogNames.NOT_FOUND, CatalogNames.lookup(name.substring(1)));
+		}
+
+		assertEquals(CatalogNames.NOT_FOUND, CatalogNames.lookup(""));
+		assertEquals(CatalogNames.NOT_FOUND, CatalogNames.lookup(null));
+		assertEquals(CatalogNames.NOT_FOUND, CatalogNames.lookup("gnome pie"));
+	}
+
+	/**
+	 * Look the name up from the middle of a delivery dialog, with its first space broken onto a new line
+	 */
+	private static int lookupInDialog(String name)
+	{
+		String prefix = "Ok, thanks. ";
+		String brokenName = name.replaceFirst(" ", DialogClassifier.LINE_BREAK);
+		String dialog = prefix + brokenName + " wants some food.";
+
+		return CatalogNames.lookup(dialog, prefix.length(), prefix.length() + brokenName.length());
+	}
+
+	private static void assertOrder(String name, int order, int code)
+	{
+		assertTrue(name, CatalogNames.isOrder(code));
+		assertEquals(name, order, CatalogNames.getOrdinal(code));
+	}
+
+	private static void assertRecipient(String name, int ordinal, boolean hard, int code)
+	{
+		assertTrue(name, CatalogNames.isRecipient(code));
+		assertEquals(name, ordinal, CatalogNames.getOrdinal(code));
+
+		if (hard)
+		{
+			assertTrue(name, CatalogNames.isHard(code));
+		}
+		else
+		{
+			assertFalse(name, CatalogNames.isHard(code));
+		}
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Delivery histories are written to a temporary file. Every call is queued on the history thread, so a query
+ * waits for the opens and appends queued before it.
+ */
+public class DeliveryHistoryTest
+{
+	private static final int START_MILLIS = 1_000_000;
+
+	private File file;
+
+	@Before
+	public void createFile() throws IOException
+	{
+		file = File.createTempFile("delivery-history", ".dat");
+		Files.delete(file.toPath());
+	}
+
+	@After
+	public void deleteFile() throws IOException
+	{
+		Files.deleteIfExists(file.toPath());
+	}
+
+	@Test
+	public void writesHeaderAndRecords() throws Exception
+	{
+		DeliveryHistory history = open();
+		history.append(createRecord(0, 3, START_MILLIS));
+		history.append(createRecord(1, 4, START_MILLIS + 1));
+		queryAll(history);
+
+		// The mapping is shared with the file, so its contents can be read while it is open
+
+		ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		assertEquals(DeliveryHistory.MAGIC, bytes.getInt(0));
+		assertEquals(DeliveryHistory.VERSION, bytes.getShort(4));
+		assertEquals(DeliveryRecord.SIZE, bytes.getShort(6));
+		assertEquals(2, bytes.getLong(8));
+
+		assertRecord(1, DeliveryRecord.read(bytes, 32 + DeliveryRecord.SIZE), 1, 4, START_MILLIS + 1);
+		close(history);
+	}
+
+	@Test
+	public void reopensExistingFile() throws Exception
+	{
+		DeliveryHistory history = open();
+
+		for (int i = 0; i < 10; i++)
+		{
+			history.append(createRecord(i, i % 3, START_MILLIS + i));
+		}
+		close(history);
+
+		DeliveryHistory reopened = open();
+		List<DeliveryRecord> records = queryAll(reopened);
+		assertEquals(10, records.size());
+
+		for (int i = 0; i < records.size(); i++)
+		{
+			assertRecord(i, records.get(i), i, i % 3, START_MILLIS + i);
+		}
+
+		// Appends carry on after the records already in the file
+
+		reopened.append(createRecord(10, 0, START_MILLIS + 10));
+		assertEquals(11, queryAll(reopened).size());
+		close(reopened);
+	}
+
+	@Test
+	public void queriesTimeRangeAndOrder() throws Exception
+	{
+		DeliveryHistory history = open();
+
+		// Enough records of each order to grow its index past its first array
+
+		for (int i = 0; i < 400; i++)
+		{
+			history.append(createRecord(i % 2, 0, START_MILLIS + i * 10));
+		}
+
+		List<DeliveryRecord> records = history.query(START_MILLIS + 100, START_MILLIS + 200, DeliveryHistory.ANY_ORDER).get();
+		assertEquals(10, records.size());
+		assertEquals(START_MILLIS + 100, records.get(0).getStartMillis());
+		assertEquals(START_MILLIS + 190, records.get(9).getStartMillis());
+
+		// Bounds between records, before the first and after the last
+
+		assertEquals(10, history.query(START_MILLIS + 95, START_MILLIS + 195, DeliveryHistory.ANY_ORDER).get().size());
+		assertEquals(0, history.query(0, START_MILLIS, DeliveryHistory.ANY_ORDER).get().size());
+		assertEquals(0, history.query(START_MILLIS + 4000, Long.MAX_VALUE, DeliveryHistory.ANY_ORDER).get().size());
+
+		List<DeliveryRecord> orderRecords = history.query(START_MILLIS + 100, START_MILLIS + 200, 1).get();
+		assertEquals(5, orderRecords.size());
+
+		for (DeliveryRecord record : orderRecords)
+		{
+			assertEquals(1, record.getOrder());
+		}
+
+		assertEquals(200, history.query(0, Long.MAX_VALUE, 0).get().size());
+		assertEquals(0, history.query(0, Long.MAX_VALUE, 2).get().size());
+		close(history);
+	}
+
+	@Test
+	public void growsPastInitialCapacity() throws Exception
+	{
+		DeliveryHistory history = open();
+		int count = 2500;
+
+		for (int i = 0; i < count; i++)
+		{
+			history.append(createRecord(i % 20, 0, START_MILLIS + i));
+		}
+
+		List<DeliveryRecord> records = queryAll(history);
+		assertEquals(count, records.size());
+		assertRecord(count - 1, records.get(count - 1), (count - 1) % 20, 0, START_MILLIS + count - 1);
+		close(history);
+
+		DeliveryHistory reopened = open();
+		assertEquals(count, queryAll(reopened).size());
+		close(reopened);
+	}
+
+	@Test
+	public void refusesFileLockedByAnotherHistory() throws Exception
+	{
+		DeliveryHistory history = open();
+		history.append(createRecord(0, 0, START_MILLIS));
+
+		DeliveryHistory other = new DeliveryHistory();
+		other.open(file);
+		other.append(createRecord(1, 0, START_MILLIS + 1));
+		assertTrue(queryAll(other).isEmpty());
+		assertFalse(other.isOpen());
+
+		assertEquals(1, queryAll(history).size());
+		close(history);
+
+		// Opening again tries once more
+
+		other.open(file);
+		assertEquals(1, queryAll(other).size());
+		assertTrue(other.isOpen());
+		close(other);
+	}
+
+	@Test
+	public void refusesCorruptFile() throws Exception
+	{
+		byte[] contents = new byte[100];
+		contents[0] = 'x';
+		Files.write(file.toPath(), contents);
+
+		DeliveryHistory history = new DeliveryHistory();
+		history.open(file);
+		history.append(createRecord(0, 0, START_MILLIS));
+		assertTrue(queryAll(history).isEmpty());
+		assertFalse(history.isOpen());
+
+		// The file is left as it was
+
+		assertArrayEquals(contents, Files.readAllBytes(file.toPath()));
+	}
+
+	private DeliveryHistory open() throws Exception
+	{
+		DeliveryHistory history = new DeliveryHistory();
+		history.open(file);
+		queryAll(history);
+		assertTrue(history.isOpen());
+		return history;
+	}
+
+	/**
+	 * Close the history and wait for the history thread to release the file
+	 */
+	private static void close(DeliveryHistory history) throws InterruptedException
+	{
+		history.close();
+
+		for (int i = 0; i < 500 && history.isOpen(); i++)
+		{
+			Thread.sleep(10);
+		}
+		assertFalse(history.isOpen());
+	}
+
+	private static List<DeliveryRecord> queryAll(DeliveryHistory history) throws Exception
+	{
+		return history.query(0, Long.MAX_VALUE, DeliveryHistory.ANY_ORDER).get();
+	}
+
+	private static DeliveryRecord createRecord(int order, int recipient, long startMillis)
+	{
+		DeliveryRecord record = new DeliveryRecord(order, recipient, order % 2 == 1, startMillis, 100);
+		record.enterStage(MinigameStage.values()[1], 105);
+		record.end(order % 3 != 0, 160);
+		return record;
+	}
+
+	private static void assertRecord(int i, DeliveryRecord record, int order, int recipient, long startMillis)
+	{
+		String message = "record " + i;
+		assertEquals(message, order, record.getOrder());
+		assertEquals(message, recipient, record.getRecipient());
+		assertEquals(message, startMillis, record.getStartMillis());
+		assertEquals(message, order % 2 == 1, record.isHard());
+		assertEquals(message, order % 3 != 0, record.isDelivered());
+		assertEquals(message, 60, record.getDurationTicks());
+		assertEquals(message, 5, record.getStageTick(MinigameStage.values()[1]));
+		assertEquals(message, DeliveryRecord.NOT_REACHED, record.getStageTick(MinigameStage.values()[0]));
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * The classifier replaced the pattern below. With one order phrase in the dialog both find the same recipient
+ * and order. With more than one, the classifier takes the first phrase while the greedy pattern took the last.
+ */
+public class DialogClassifierTest
+{
+	private static final Pattern DELIVERY_START_PATTERN = Pattern.compile("([\\w .]+) wants (?:some|a) ([\\w ]+)");
+
+	private final DialogClassifier classifier = new DialogClassifier(DialogLine.values());
+	private final DialogMatch match = new DialogMatch();
+
+	@Test
+	public void findsRecipientAndOrderSpans()
+	{
+		assertTrue(classifier.classify("Ok, thanks. Prof. Onglewip wants some worm hole.<br>Take this box to them quickly please.", match));
+		assertTrue(match.hasLine(DialogLine.DELIVERY_START));
+		assertFalse(match.hasLine(DialogLine.EASY_DELIVERY_DELAY));
+
+		// The recipient run stops at the comma, the order run at the full stop
+
+		assertEquals(" thanks. Prof. Onglewip", match.getRecipientName());
+		assertEquals("worm hole", match.getOrderName());
+	}
+
+	@Test
+	public void findsBothOrderPhrases()
+	{
+		classifier.classify("Wurbel wants a chocolate bomb.", match);
+		assertTrue(match.hasLine(DialogLine.DELIVERY_START));
+		assertEquals("Wurbel", match.getRecipientName());
+		assertEquals("chocolate bomb", match.getOrderName());
+
+		classifier.classify("Wurbel wants some chocolate bomb.", match);
+		assertTrue(match.hasLine(DialogLine.DELIVERY_START));
+		assertEquals("Wurbel", match.getRecipientName());
+		assertEquals("chocolate bomb", match.getOrderName());
+	}
+
+	@Test
+	public void readsLineBreaksAsSpaces()
+	{
+		classifier.classify("Captain<br>Errdo wants<br>some chocolate<br>bomb", match);
+		assertTrue(match.hasLine(DialogLine.DELIVERY_START));
+		assertEquals("Captain Errdo", match.getRecipientName());
+		assertEquals("chocolate bomb", match.getOrderName());
+
+		// A break right before or after the phrase belongs to the phrase
+
+		classifier.classify("Wurbel<br>wants a<br>worm hole", match);
+		assertEquals("Wurbel", match.getRecipientName());
+		assertEquals("worm hole", match.getOrderName());
+	}
+
+	@Test
+	public void needsRecipientAndOrder()
+	{
+		assertFalse(classifier.classify(" wants some worm hole", match));
+		assertFalse(classifier.classify("Wurbel wants some ", match));
+		assertFalse(classifier.classify("Wurbel wants some.", match));
+		assertFalse(classifier.classify("Wurbel wants a", match));
+		assertNull(match.getRecipientName());
+	}
+
+	@Test
+	public void findsDelayLines()
+	{
+		for (DialogLine line : new DialogLine[]{DialogLine.EASY_DELIVERY_DELAY, DialogLine.HARD_DELIVERY_DELAY})
+		{
+			String phrase = line.getPhrases()[0];
+
+			assertTrue(line.name(), classifier.classify(phrase, match));
+			assertTrue(line.name(), match.hasLine(line));
+			assertFalse(line.name(), match.hasLine(DialogLine.DELIVERY_START));
+
+			// As the widget shows it, broken over lines
+
+			assertTrue(line.name(), classifier.classify(phrase.replace(". ", ".<br>"), match));
+			assertTrue(line.name(), match.hasLine(line));
+
+			assertFalse(line.name(), classifier.classify(phrase.substring(0, phrase.length() - 2), match));
+		}
+
+		// Both delay lines start the same way, only the one that is complete is found
+
+		classifier.classify(DialogLine.HARD_DELIVERY_DELAY.getPhrases()[0], match);
+		assertFalse(match.hasLine(DialogLine.EASY_DELIVERY_DELAY));
+	}
+
+	/**
+	 * The first order phrase is used and the order runs on over any later phrase, where the greedy pattern put
+	 * the earlier phrases into the recipient. Gianne jnr. never names two orders, and neither reading is a
+	 * catalog name, so such a dialog is not tracked either way.
+	 */
+	@Test
+	public void usesFirstOfRepeatedPhrases()
+	{
+		String dialog = "Wurbel wants some worm hole wants a chocolate bomb.";
+
+		classifier.classify(dialog, match);
+		assertEquals("Wurbel", match.getRecipientName());
+		assertEquals("worm hole wants a chocolate bomb", match.getOrderName());
+		assertTrue(CatalogNames.isRecipient(match.lookupRecipientName()));
+		assertFalse(CatalogNames.isOrder(match.lookupOrderName()));
+
+		Matcher matcher = DELIVERY_START_PATTERN.matcher(dialog);
+		assertTrue(matcher.find());
+		assertEquals("Wurbel wants some worm hole", matcher.group(1));
+		assertEquals("chocolate bomb", matcher.group(2));
+
+		// A phrase with nothing before it is skipped for the next one
+
+		classifier.classify(", wants some, Wurbel wants a worm hole", match);
+		assertEquals(" Wurbel", match.getRecipientName());
+		assertEquals("worm hole", match.getOrderName());
+	}
+
+	@Test
+	public void agreesWithPatternOnEveryCatalogName()
+	{
+		for (String[] recipientNames : new String[][]{RecipeTables.EASY_RECIPIENT_NAMES, RecipeTables.HARD_RECIPIENT_NAMES})
+		{
+			for (String recipientName : recipientNames)
+			{
+				for (String orderName : RecipeTables.ORDER_NAMES)
+				{
+					String dialog = PluginHarness.deliveryDialog(recipientName, orderName);
+					Matcher matcher = DELIVERY_START_PATTERN.matcher(dialog.replace(DialogClassifier.LINE_BREAK, " "));
+
+					assertTrue(dialog, classifier.classify(dialog, match));
+					assertTrue(dialog, matcher.find());
+					assertEquals(dialog, matcher.group(1), match.getRecipientName());
+					assertEquals(dialog, matcher.group(2), match.getOrderName());
+				}
+			}
+		}
+	}
+}
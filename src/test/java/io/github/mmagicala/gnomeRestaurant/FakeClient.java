@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.NPC;
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetInfo;
+
+/**
+ * Stand-in for the RuneLite client that answers the calls the plugin makes from plain fields. Calls
+ * the plugin does not make return the default value of their return type.
+ */
+public class FakeClient implements InvocationHandler
+{
+	private static final int MAX_NPCS = 32768;
+
+	private final Client client = (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class}, this);
+
+	private final Map<WidgetInfo, Widget> widgets = new EnumMap<>(WidgetInfo.class);
+	private final Map<InventoryID, ItemContainer> itemContainers = new EnumMap<>(InventoryID.class);
+	private final Map<Integer, Integer> varbits = new HashMap<>();
+
+	private NPC[] cachedNPCs = new NPC[MAX_NPCS];
+	private NPC hintArrowNpc;
+	private GameState gameState = GameState.LOGGED_IN;
+	private int[] mapRegions = new int[0];
+	private int tickCount;
+
+	public Client getClient()
+	{
+		return client;
+	}
+
+	public NPC getHintArrowNpc()
+	{
+		return hintArrowNpc;
+	}
+
+	public void setCachedNpc(int index, NPC npc)
+	{
+		cachedNPCs[index] = npc;
+	}
+
+	public void setGameState(GameState gameState)
+	{
+		this.gameState = gameState;
+	}
+
+	public void setMapRegions(int... mapRegions)
+	{
+		this.mapRegions = mapRegions;
+	}
+
+	public int getTickCount()
+	{
+		return tickCount;
+	}
+
+	public void setTickCount(int tickCount)
+	{
+		this.tickCount = tickCount;
+	}
+
+	/**
+	 * Show an NPC dialog, or close it if the name is null
+	 */
+	public void setDialog(String npcName, String text)
+	{
+		if (npcName == null)
+		{
+			setWidget(WidgetInfo.DIALOG_NPC_NAME, null);
+			setWidget(WidgetInfo.DIALOG_NPC_TEXT, null);
+		}
+		else
+		{
+			setWidget(WidgetInfo.DIALOG_NPC_NAME, createWidget(npcName));
+			setWidget(WidgetInfo.DIALOG_NPC_TEXT, createWidget(text));
+		}
+	}
+
+	public void setWidget(WidgetInfo widgetInfo, Widget widget)
+	{
+		if (widget == null)
+		{
+			widgets.remove(widgetInfo);
+		}
+		else
+		{
+			widgets.put(widgetInfo, widget);
+		}
+	}
+
+	public void setItemContainer(InventoryID inventoryID, ItemContainer itemContainer)
+	{
+		itemContainers.put(inventoryID, itemContainer);
+	}
+
+	public void setVarbit(int varbitId, int value)
+	{
+		varbits.put(varbitId, value);
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args)
+	{
+		switch (method.getName())
+		{
+			case "getWidget":
+				return args.length == 1 ? widgets.get(args[0]) : null;
+			case "getItemContainer":
+				return itemContainers.get(args[0]);
+			case "getVarbitValue":
+				return varbits.getOrDefault(args[args.length - 1], 0);
+			case "getCachedNPCs":
+				return cachedNPCs;
+			case "setHintArrow":
+				hintArrowNpc = args[0] instanceof NPC ? (NPC) args[0] : null;
+				return null;
+			case "clearHintArrow":
+				hintArrowNpc = null;
+				return null;
+			case "getGameState":
+				return gameState;
+			case "getMapRegions":
+				return mapRegions;
+			case "getTickCount":
+				return tickCount;
+			case "isClientThread":
+				return true;
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			case "toString":
+				return "FakeClient";
+			default:
+				return defaultValue(method.getReturnType());
+		}
+	}
+
+	public static NPC createNpc(int index, int id, String name)
+	{
+		return (NPC) Proxy.newProxyInstance(NPC.class.getClassLoader(), new Class<?>[]{NPC.class},
+			(proxy, method, args) ->
+			{
+				switch (method.getName())
+				{
+					case "getIndex":
+						return index;
+					case "getId":
+						return id;
+					case "getName":
+						return name;
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					case "toString":
+						return name + " (" + id + ")";
+					default:
+						return defaultValue(method.getReturnType());
+				}
+			});
+	}
+
+	public static Widget createWidget(String text)
+	{
+		return (Widget) Proxy.newProxyInstance(Widget.class.getClassLoader(), new Class<?>[]{Widget.class},
+			(proxy, method, args) -> method.getName().equals("getText") ? text : defaultValue(method.getReturnType()));
+	}
+
+	public static ItemContainer createItemContainer(Item... items)
+	{
+		Item[] slots = Arrays.copyOf(items, items.length);
+
+		return (ItemContainer) Proxy.newProxyInstance(ItemContainer.class.getClassLoader(), new Class<?>[]{ItemContainer.class},
+			(proxy, method, args) ->
+			{
+				switch (method.getName())
+				{
+					case "getItems":
+						return slots;
+					case "contains":
+						return Arrays.stream(slots).anyMatch(item -> item.getId() == (int) args[0]);
+					case "count":
+						return Arrays.stream(slots).filter(item -> item.getId() == (int) args[0]).mapToInt(Item::getQuantity).sum();
+					default:
+						return defaultValue(method.getReturnType());
+				}
+			});
+	}
+
+	private static Object defaultValue(Class<?> type)
+	{
+		if (!type.isPrimitive() || type == void.class)
+		{
+			return null;
+		}
+		else if (type == boolean.class)
+		{
+			return false;
+		}
+		else if (type == long.class)
+		{
+			return 0L;
+		}
+		else if (type == float.class)
+		{
+			return 0f;
+		}
+		else if (type == double.class)
+		{
+			return 0d;
+		}
+		else if (type == char.class)
+		{
+			return '\0';
+		}
+		else if (type == byte.class)
+		{
+			return (byte) 0;
+		}
+		else if (type == short.class)
+		{
+			return (short) 0;
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.api.ItemID;
+import net.runelite.client.util.AsyncBufferedImage;
+
+/**
+ * Item asset cache that names items after their ItemID constants instead of loading them from the game cache
+ */
+public class FakeItemAssetCache extends ItemAssetCache
+{
+	private static final Map<Integer, String> ITEM_NAMES = new HashMap<>();
+
+	static
+	{
+		for (Field field : ItemID.class.getFields())
+		{
+			if (Modifier.isStatic(field.getModifiers()) && field.getType() == int.class)
+			{
+				try
+				{
+					ITEM_NAMES.putIfAbsent(field.getInt(null), field.getName());
+				}
+				catch (IllegalAccessException e)
+				{
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+	}
+
+	public FakeItemAssetCache()
+	{
+		super(null, null, null);
+	}
+
+	@Override
+	public void prewarm(Collection<Integer> itemIds)
+	{
+	}
+
+	@Override
+	public String getItemName(int itemId)
+	{
+		return ITEM_NAMES.getOrDefault(itemId, Integer.toString(itemId));
+	}
+
+	@Override
+	public AsyncBufferedImage getImage(int itemId)
+	{
+		return null;
+	}
+
+	@Override
+	public void clear()
+	{
+	}
+}
@@ -0,0 +1,677 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.ItemID;
+import net.runelite.api.NPC;
+import net.runelite.client.ui.overlay.infobox.InfoBox;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Pushes randomized but legal order flows for every order through a headless plugin, checks the plugin
+ * against a model of what it should show after every event, and reports steady-state throughput and
+ * allocation rate. A failing flow is replayed on a fresh plugin with its events printed.
+ *
+ * Usage: OrderFlowFuzzer [flows] [seed]
+ */
+public class OrderFlowFuzzer
+{
+	private static final int DEFAULT_FLOWS = 1_000_000;
+
+	// The first flows warm up the JIT and are left out of the report
+
+	private static final double WARM_UP_FRACTION = 0.1;
+
+	private static final int OTHER_VARBIT_ID = 1234;
+	private static final int RECIPIENT_NPC_INDEX = 1;
+	private static final int OTHER_NPC_INDEX = 2;
+
+	// NPC IDs stay the same for each name, as they do in game
+
+	private static final int RECIPIENT_NPC_ID = 5000;
+	private static final int UNKNOWN_RECIPIENT_NPC_ID = 6000;
+	private static final int OTHER_NPC_ID = 100;
+
+	private static final int[] UNRELATED_ITEM_IDS = {
+		ItemID.COINS_995, ItemID.LAW_RUNE, ItemID.SHARK, ItemID.LOBSTER, ItemID.ROPE
+	};
+
+	// Names Gianne jnr. could use that the plugin doesn't know about, such as ones added in a game update
+
+	private static final String[] UNKNOWN_RECIPIENT_NAMES = {"Wise Old Man", "Gnome child"};
+	private static final String[] UNKNOWN_ORDER_NAMES = {"gnome pie", "worm toad batta"};
+
+	private static final String[] ORDER_NAMES = new TreeSet<>(GnomeRestaurantPlugin.itemOrders.keySet()).toArray(new String[0]);
+	private static final String[] RECIPIENT_NAMES;
+
+	static
+	{
+		TreeSet<String> recipientNames = new TreeSet<>(GnomeRestaurantPlugin.easyOrderNPCs.keySet());
+		recipientNames.addAll(GnomeRestaurantPlugin.hardOrderNPCs.keySet());
+		RECIPIENT_NAMES = recipientNames.toArray(new String[0]);
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		int flows = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FLOWS;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		int warmUpFlows = (int) (flows * WARM_UP_FRACTION);
+
+		System.out.println("Running " + flows + " order flows with seed " + seed);
+		run(flows, seed, warmUpFlows).report();
+	}
+
+	/**
+	 * Run the flows generated from a seed, throwing the first model check that fails
+	 * @return the fuzzer, measured from the end of the warm-up flows
+	 */
+	static OrderFlowFuzzer run(int flows, long seed, int warmUpFlows) throws Exception
+	{
+		OrderFlowFuzzer fuzzer = new OrderFlowFuzzer(false);
+		Random seeds = new Random(seed);
+
+		for (int flow = 0; flow < flows; flow++)
+		{
+			if (flow == warmUpFlows)
+			{
+				fuzzer.resetMeasurements();
+			}
+
+			long flowSeed = seeds.nextLong();
+
+			try
+			{
+				fuzzer.runFlow(flowSeed);
+			}
+			catch (Throwable t)
+			{
+				System.err.println("Flow " + flow + " (flow seed " + flowSeed + ") failed: " + t);
+				reproduce(flowSeed);
+				throw t;
+			}
+		}
+
+		return fuzzer;
+	}
+
+	/**
+	 * Run a failed flow again on a fresh plugin and print its events, leading up to the failure if it recurs
+	 */
+	private static void reproduce(long flowSeed) throws Exception
+	{
+		OrderFlowFuzzer fuzzer = new OrderFlowFuzzer(true);
+
+		try
+		{
+			fuzzer.runFlow(flowSeed);
+			System.err.println("The flow passes on a fresh plugin, so it depends on state left by earlier flows:");
+		}
+		catch (Throwable t)
+		{
+			System.err.println("The flow fails on a fresh plugin too: " + t);
+		}
+
+		for (String event : fuzzer.trace)
+		{
+			System.err.println("  " + event);
+		}
+	}
+
+	private final PluginHarness harness;
+	private final GnomeRestaurantPlugin plugin;
+	private final FakeClient fakeClient;
+	private final Random random = new Random();
+
+	private final Map<String, StagePlan> stagePlans = StagePlan.compileAll(GnomeRestaurantPlugin.itemOrders);
+	private final List<InfoBox> infoBoxes = new ArrayList<>();
+	private final List<Item> slots = new ArrayList<>();
+	private final InventorySnapshot expectedInventorySnapshot = new InventorySnapshot();
+	private final List<String> trace;
+
+	// What the plugin should be showing
+
+	private boolean tracking;
+
+	// The order is read and tracked on the dialog's tick
+
+	private int ticksUntilTracking;
+	private boolean delayTimerShown;
+	private StagePlan stagePlan;
+	private ItemContainer inventory;
+	private NPC recipientNpc;
+	private boolean recipientSpawned;
+
+	// Time and memory spent inside the plugin's event handlers
+
+	private final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	private final long threadId = Thread.currentThread().getId();
+	private long measuredEvents, measuredFlows, measuredNanos, measuredBytes, measurementStart;
+
+	private OrderFlowFuzzer(boolean traceEvents) throws Exception
+	{
+		harness = new PluginHarness(false);
+		plugin = harness.getPlugin();
+		fakeClient = harness.getFakeClient();
+		trace = traceEvents ? new ArrayList<>() : null;
+
+		doAnswer(invocation ->
+		{
+			infoBoxes.add(invocation.getArgument(0));
+			return null;
+		}).when(harness.getInfoBoxManager()).addInfoBox(any());
+
+		doAnswer(invocation ->
+		{
+			infoBoxes.remove((InfoBox) invocation.getArgument(0));
+			return null;
+		}).when(harness.getInfoBoxManager()).removeInfoBox(any());
+
+		inventory = FakeClient.createItemContainer();
+		harness.setInventory(inventory);
+		resetMeasurements();
+	}
+
+	private void resetMeasurements()
+	{
+		measuredEvents = measuredFlows = measuredNanos = measuredBytes = 0;
+		measurementStart = System.nanoTime();
+	}
+
+	private void report()
+	{
+		double seconds = (System.nanoTime() - measurementStart) / 1e9;
+
+		System.out.printf("Steady state: %,d flows and %,d events in %.2f s%n", measuredFlows, measuredEvents, seconds);
+		System.out.printf("  Throughput: %,.0f flows/s, %,.0f events/s, %,d ns per event inside the plugin%n",
+			measuredFlows / seconds, measuredEvents / seconds, measuredNanos / Math.max(measuredEvents, 1));
+		System.out.printf("  Allocation: %,d bytes per event, %,d bytes per flow, %,.1f MB/s while handling events%n",
+			measuredBytes / Math.max(measuredEvents, 1), measuredBytes / Math.max(measuredFlows, 1),
+			measuredBytes / 1e6 / Math.max(measuredNanos / 1e9, 1e-9));
+	}
+
+	private void runFlow(long flowSeed)
+	{
+		random.setSeed(flowSeed);
+
+		// Before the delivery, the player may have refused an order and may already see the recipient
+
+		addNoise(random.nextInt(3));
+
+		if (random.nextInt(4) == 0)
+		{
+			delayTimerShown = true;
+			showDialog(random.nextBoolean() ? delayLine(DialogLine.EASY_DELIVERY_DELAY) : delayLine(DialogLine.HARD_DELIVERY_DELAY));
+		}
+
+		String orderName = ORDER_NAMES[random.nextInt(ORDER_NAMES.length)];
+		String recipientName = RECIPIENT_NAMES[random.nextInt(RECIPIENT_NAMES.length)];
+		boolean known = random.nextInt(50) != 0;
+
+		if (!known)
+		{
+			if (random.nextBoolean())
+			{
+				recipientName = UNKNOWN_RECIPIENT_NAMES[random.nextInt(UNKNOWN_RECIPIENT_NAMES.length)];
+			}
+			else
+			{
+				orderName = UNKNOWN_ORDER_NAMES[random.nextInt(UNKNOWN_ORDER_NAMES.length)];
+			}
+		}
+
+		recipientNpc = FakeClient.createNpc(RECIPIENT_NPC_INDEX, getNpcId(recipientName), getRealName(recipientName));
+
+		if (random.nextInt(3) == 0)
+		{
+			setRecipientSpawned(true);
+		}
+
+		// Gianne jnr. hands over the order
+
+		setVarbit(GnomeRestaurantPlugin.DELIVERY_VARBIT_ID, 1);
+
+		// An order that can't be tracked is dropped straight away, the delay timer with it
+
+		ticksUntilTracking = known ? 1 : 0;
+		delayTimerShown = delayTimerShown && known;
+		stagePlan = known ? stagePlans.get(orderName) : null;
+		showDialog(deliveryLine(recipientName, orderName));
+
+		if (known)
+		{
+			walkStages(recipientName, orderName);
+		}
+
+		// The order is handed in or runs out, either way the varbit is cleared
+
+		tracking = false;
+		setVarbit(GnomeRestaurantPlugin.DELIVERY_VARBIT_ID, 0);
+
+		setInventory(buildInventory(null, 0));
+
+		if (recipientSpawned)
+		{
+			setRecipientSpawned(false);
+		}
+
+		recipientNpc = null;
+		measuredFlows++;
+	}
+
+	/**
+	 * Move through the stages of an order, mostly forwards, with ingredient changes and unrelated events along the way
+	 */
+	private void walkStages(String recipientName, String orderName)
+	{
+		int stageNodeIndex = 0;
+		int maxSteps = stagePlan.size() * 4;
+
+		// Most players finish their order, the rest run out of time part way
+
+		int lastStageNodeIndex = random.nextInt(8) == 0 ? random.nextInt(stagePlan.size()) : stagePlan.size() - 1;
+
+		for (int step = 0; step < maxSteps; step++)
+		{
+			setInventory(buildInventory(stagePlan, stageNodeIndex));
+			addNoise(random.nextInt(2));
+
+			if (random.nextInt(10) == 0)
+			{
+				// Talking to Gianne jnr. again must not restart the order
+
+				showDialog(deliveryLine(recipientName, orderName));
+			}
+
+			if (stageNodeIndex == lastStageNodeIndex)
+			{
+				break;
+			}
+
+			int move = random.nextInt(10);
+
+			if (move < 8)
+			{
+				stageNodeIndex++;
+			}
+			else if (move == 8 && stageNodeIndex > 0)
+			{
+				stageNodeIndex--;
+			}
+		}
+	}
+
+	private void addNoise(int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			switch (random.nextInt(6))
+			{
+				case 0:
+					tick();
+					break;
+				case 1:
+					setItemContainer(InventoryID.BANK, buildUnrelatedItems(random.nextInt(20)));
+					break;
+				case 2:
+					setItemContainer(InventoryID.EQUIPMENT, buildUnrelatedItems(random.nextInt(11)));
+					break;
+				case 3:
+					setVarbit(OTHER_VARBIT_ID, random.nextInt(4));
+					break;
+				case 4:
+					toggleOtherNpc();
+					break;
+				default:
+					if (recipientNpc != null)
+					{
+						setRecipientSpawned(!recipientSpawned);
+					}
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Build a 28 slot inventory for a stage, leaving out some ingredients and later stage items, and adding
+	 * leftovers from other stages and unrelated items, in a random order
+	 */
+	private ItemContainer buildInventory(StagePlan plan, int stageNodeIndex)
+	{
+		slots.clear();
+
+		if (plan != null)
+		{
+			addCookingItems(plan.getStageNode(stageNodeIndex).getCurrentItems(), 10);
+
+			for (int i = stageNodeIndex + 1; i < plan.size(); i++)
+			{
+				addCookingItems(plan.getStageNode(i).getOtherRequiredItems(), 4);
+			}
+
+			if (random.nextInt(10) == 0)
+			{
+				int producedItemId = plan.getStageNode(random.nextInt(plan.size())).getProducedItemId();
+
+				if (producedItemId != -1)
+				{
+					slots.add(new Item(producedItemId, 1));
+				}
+			}
+		}
+
+		for (int i = random.nextInt(4); i > 0; i--)
+		{
+			slots.add(new Item(UNRELATED_ITEM_IDS[random.nextInt(UNRELATED_ITEM_IDS.length)], 1 + random.nextInt(100)));
+		}
+
+		while (slots.size() < PluginHarness.INVENTORY_SIZE)
+		{
+			slots.add(new Item(-1, 0));
+		}
+
+		Collections.shuffle(slots, random);
+		return FakeClient.createItemContainer(slots.subList(0, PluginHarness.INVENTORY_SIZE).toArray(new Item[0]));
+	}
+
+	/**
+	 * Add one slot per item, leaving each out with a chance of one in the given odds
+	 */
+	private void addCookingItems(List<CookingItem> cookingItems, int odds)
+	{
+		for (CookingItem cookingItem : cookingItems)
+		{
+			for (int i = 0; i < cookingItem.getCount(); i++)
+			{
+				if (random.nextInt(odds) != 0)
+				{
+					slots.add(new Item(cookingItem.getItemId(), 1));
+				}
+			}
+		}
+	}
+
+	private ItemContainer buildUnrelatedItems(int count)
+	{
+		Item[] items = new Item[count];
+
+		for (int i = 0; i < count; i++)
+		{
+			items[i] = new Item(UNRELATED_ITEM_IDS[random.nextInt(UNRELATED_ITEM_IDS.length)], 1 + random.nextInt(1000));
+		}
+		return FakeClient.createItemContainer(items);
+	}
+
+	private static int getNpcId(String printedRecipientName)
+	{
+		int index = Arrays.asList(RECIPIENT_NAMES).indexOf(printedRecipientName);
+		return index != -1 ? RECIPIENT_NPC_ID + index : UNKNOWN_RECIPIENT_NPC_ID + Arrays.asList(UNKNOWN_RECIPIENT_NAMES).indexOf(printedRecipientName);
+	}
+
+	private static String getRealName(String printedRecipientName)
+	{
+		String realName = GnomeRestaurantPlugin.easyOrderNPCs.get(printedRecipientName);
+
+		if (realName == null)
+		{
+			realName = GnomeRestaurantPlugin.hardOrderNPCs.get(printedRecipientName);
+		}
+		return realName == null ? printedRecipientName : realName;
+	}
+
+	private String deliveryLine(String recipientName, String orderName)
+	{
+		return recipientName + (random.nextBoolean() ? " wants some " : " wants a ") + orderName + ".<br>Take this box to them quickly please.";
+	}
+
+	private static String delayLine(DialogLine dialogLine)
+	{
+		return dialogLine.getPhrases()[0].replaceFirst(" ", "<br>");
+	}
+
+	// Events, each timed and checked against the model
+
+	private void tick()
+	{
+		trace("tick");
+		long bytes = allocatedBytes();
+		long start = System.nanoTime();
+		harness.tick();
+		measure(start, bytes);
+
+		if (ticksUntilTracking > 0 && --ticksUntilTracking == 0)
+		{
+			tracking = true;
+			delayTimerShown = false;
+		}
+		check();
+	}
+
+	/**
+	 * Open a Gianne jnr. dialog for a tick, then close it so the same dialog can be read again later
+	 */
+	private void showDialog(String text)
+	{
+		trace("dialog " + text);
+		long bytes = allocatedBytes();
+		long start = System.nanoTime();
+		harness.openDialog(PluginHarness.GIANNE_JNR_NAME, text);
+		measure(start, bytes);
+
+		tick();
+		harness.closeDialog();
+		tick();
+	}
+
+	private void setInventory(ItemContainer inventory)
+	{
+		this.inventory = inventory;
+		setItemContainer(InventoryID.INVENTORY, inventory);
+	}
+
+	private void setItemContainer(InventoryID inventoryID, ItemContainer itemContainer)
+	{
+		trace(inventoryID + " " + describe(itemContainer));
+		long bytes = allocatedBytes();
+		long start = System.nanoTime();
+		harness.setItemContainer(inventoryID, itemContainer);
+		measure(start, bytes);
+		check();
+	}
+
+	private void setVarbit(int varbitId, int value)
+	{
+		trace("varbit " + varbitId + " = " + value);
+		long bytes = allocatedBytes();
+		long start = System.nanoTime();
+		harness.setVarbit(varbitId, value);
+		measure(start, bytes);
+		check();
+	}
+
+	private void setRecipientSpawned(boolean spawned)
+	{
+		recipientSpawned = spawned;
+		toggleNpc(recipientNpc, spawned);
+	}
+
+	private void toggleOtherNpc()
+	{
+		NPC npc = fakeClient.getClient().getCachedNPCs()[OTHER_NPC_INDEX];
+		toggleNpc(npc == null ? FakeClient.createNpc(OTHER_NPC_INDEX, OTHER_NPC_ID, "Gnome guard") : npc, npc == null);
+	}
+
+	private void toggleNpc(NPC npc, boolean spawned)
+	{
+		trace((spawned ? "spawn " : "despawn ") + npc);
+		long bytes = allocatedBytes();
+		long start = System.nanoTime();
+
+		if (spawned)
+		{
+			harness.spawnNpc(npc);
+		}
+		else
+		{
+			harness.despawnNpc(npc);
+		}
+
+		measure(start, bytes);
+		check();
+	}
+
+	private long allocatedBytes()
+	{
+		return threadMXBean.getThreadAllocatedBytes(threadId);
+	}
+
+	private void measure(long start, long bytes)
+	{
+		measuredNanos += System.nanoTime() - start;
+		measuredBytes += allocatedBytes() - bytes;
+		measuredEvents++;
+	}
+
+	private void trace(String event)
+	{
+		if (trace != null)
+		{
+			trace.add(event);
+		}
+	}
+
+	private static String describe(ItemContainer itemContainer)
+	{
+		StringBuilder description = new StringBuilder("[");
+
+		for (Item item : itemContainer.getItems())
+		{
+			if (item.getId() != -1)
+			{
+				description.append(description.length() > 1 ? ", " : "").append(item.getId()).append('x').append(item.getQuantity());
+			}
+		}
+		return description.append(']').toString();
+	}
+
+	// Model checks
+
+	private void check()
+	{
+		OverlaySnapshot overlaySnapshot = plugin.getOverlaySnapshot();
+
+		if (tracking)
+		{
+			require(overlaySnapshot != null, "no overlay during a delivery");
+
+			int expectedStageNodeIndex = getExpectedStageNodeIndex();
+			require(overlaySnapshot.getStageNodeIndex() == expectedStageNodeIndex,
+				"overlay shows stage " + overlaySnapshot.getStageNodeIndex() + " but the inventory is at stage " + expectedStageNodeIndex);
+
+			expectedInventorySnapshot.update(inventory);
+			require(showsInventoryCounts(overlaySnapshot.getCurrentItems()) && showsInventoryCounts(overlaySnapshot.getFutureItems()),
+				"overlay shows stale inventory counts");
+
+			require(countTimers(true) == 1, countTimers(true) + " order timers during a delivery");
+			require(fakeClient.getHintArrowNpc() == (recipientSpawned ? recipientNpc : null),
+				"hint arrow points at " + fakeClient.getHintArrowNpc() + " but the recipient " + (recipientSpawned ? "is" : "isn't") + " spawned");
+		}
+		else
+		{
+			require(overlaySnapshot == null, "overlay shown without a delivery");
+			require(countTimers(true) == 0, "order timer shown without a delivery");
+			require(fakeClient.getHintArrowNpc() == null, "hint arrow shown without a delivery");
+		}
+
+		require(countTimers(false) == (delayTimerShown ? 1 : 0), countTimers(false) + " delay timers, expected " + (delayTimerShown ? 1 : 0));
+	}
+
+	/**
+	 * @return the latest stage whose produced item is in the inventory, worked out from scratch
+	 */
+	private int getExpectedStageNodeIndex()
+	{
+		for (int i = stagePlan.size() - 1; i > 0; i--)
+		{
+			int producedItemId = stagePlan.getStageNode(i).getProducedItemId();
+
+			for (Item item : inventory.getItems())
+			{
+				if (item.getId() == producedItemId)
+				{
+					return i;
+				}
+			}
+		}
+		return 0;
+	}
+
+	private boolean showsInventoryCounts(List<OverlayEntry> overlayEntries)
+	{
+		for (OverlayEntry overlayEntry : overlayEntries)
+		{
+			if (overlayEntry.getInventoryCount() != expectedInventorySnapshot.count(overlayEntry.getItemId()))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int countTimers(boolean orderTimers)
+	{
+		int count = 0;
+
+		for (InfoBox infoBox : infoBoxes)
+		{
+			if (infoBox.getTooltip().startsWith("Deliver ") == orderTimers)
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static void require(boolean condition, String message)
+	{
+		if (!condition)
+		{
+			throw new AssertionError(message);
+		}
+	}
+}
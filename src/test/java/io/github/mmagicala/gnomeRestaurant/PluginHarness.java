@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.runelite.api.Client;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.ItemID;
+import net.runelite.api.NPC;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.api.widgets.WidgetID;
+import net.runelite.client.chat.ChatMessageManager;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.ui.overlay.OverlayManager;
+import net.runelite.client.ui.overlay.infobox.InfoBoxManager;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Builds a GnomeRestaurantPlugin on top of a FakeClient and drives it with the same events the client would post
+ */
+public class PluginHarness
+{
+	public static final String GIANNE_JNR_NAME = "Gianne jnr.";
+	public static final int INVENTORY_SIZE = 28;
+	public static final int GRAND_TREE_REGION_ID = 9782;
+
+	private static final GameTick GAME_TICK = new GameTick();
+
+	private final FakeClient fakeClient = new FakeClient();
+	private final InfoBoxManager infoBoxManager = mock(InfoBoxManager.class);
+	private final OverlayManager overlayManager = mock(OverlayManager.class);
+	private final ChatMessageManager chatMessageManager = mock(ChatMessageManager.class);
+
+	// Exceptions thrown by subscribers are rethrown to the caller rather than logged
+
+	private final EventBus eventBus = new EventBus(e ->
+	{
+		throw new IllegalStateException("Exception thrown by an event subscriber", e);
+	});
+
+	private final GnomeRestaurantPlugin plugin;
+
+	public PluginHarness(boolean developerMode) throws Exception
+	{
+		Injector injector = Guice.createInjector(binder ->
+		{
+			binder.bind(Client.class).toInstance(fakeClient.getClient());
+			binder.bind(GnomeRestaurantConfig.class).toInstance(new GnomeRestaurantConfig()
+			{
+				// Keep harness runs out of the real delivery history
+
+				@Override
+				public boolean saveDeliveryHistory()
+				{
+					return false;
+				}
+			});
+			binder.bind(ItemAssetCache.class).toInstance(new FakeItemAssetCache());
+			binder.bind(InfoBoxManager.class).toInstance(infoBoxManager);
+			binder.bind(OverlayManager.class).toInstance(overlayManager);
+			binder.bind(ChatMessageManager.class).toInstance(chatMessageManager);
+			binder.bind(EventBus.class).toInstance(eventBus);
+			binder.bind(boolean.class).annotatedWith(Names.named("developerMode")).toInstance(developerMode);
+		});
+
+		plugin = injector.getInstance(GnomeRestaurantPlugin.class);
+		fakeClient.setItemContainer(InventoryID.INVENTORY, FakeClient.createItemContainer());
+
+		// Start in the Grand Tree, where Gianne jnr.'s dialogs are read
+
+		fakeClient.setMapRegions(GRAND_TREE_REGION_ID);
+		plugin.startUp();
+		eventBus.register(plugin);
+	}
+
+	public GnomeRestaurantPlugin getPlugin()
+	{
+		return plugin;
+	}
+
+	public FakeClient getFakeClient()
+	{
+		return fakeClient;
+	}
+
+	public InfoBoxManager getInfoBoxManager()
+	{
+		return infoBoxManager;
+	}
+
+	public OverlayManager getOverlayManager()
+	{
+		return overlayManager;
+	}
+
+	public EventBus getEventBus()
+	{
+		return eventBus;
+	}
+
+	public void shutDown() throws Exception
+	{
+		eventBus.unregister(plugin);
+		plugin.shutDown();
+	}
+
+	public void tick()
+	{
+		fakeClient.setTickCount(fakeClient.getTickCount() + 1);
+		eventBus.post(GAME_TICK);
+	}
+
+	/**
+	 * Open an NPC dialog the way the client does, by loading the dialog interface
+	 */
+	public void openDialog(String npcName, String text)
+	{
+		fakeClient.setDialog(npcName, text);
+
+		WidgetLoaded widgetLoaded = new WidgetLoaded();
+		widgetLoaded.setGroupId(WidgetID.DIALOG_NPC_GROUP_ID);
+		eventBus.post(widgetLoaded);
+	}
+
+	public void closeDialog()
+	{
+		fakeClient.setDialog(null, null);
+	}
+
+	public void setInventory(ItemContainer inventory)
+	{
+		setItemContainer(InventoryID.INVENTORY, inventory);
+	}
+
+	public void setItemContainer(InventoryID inventoryID, ItemContainer itemContainer)
+	{
+		fakeClient.setItemContainer(inventoryID, itemContainer);
+		eventBus.post(new ItemContainerChanged(inventoryID.getId(), itemContainer));
+	}
+
+	public void setVarbit(int varbitId, int value)
+	{
+		fakeClient.setVarbit(varbitId, value);
+
+		eventBus.post(new VarbitChanged());
+	}
+
+	public void spawnNpc(NPC npc)
+	{
+		fakeClient.setCachedNpc(npc.getIndex(), npc);
+		eventBus.post(new NpcSpawned(npc));
+	}
+
+	public void despawnNpc(NPC npc)
+	{
+		fakeClient.setCachedNpc(npc.getIndex(), null);
+		eventBus.post(new NpcDespawned(npc));
+	}
+
+	/**
+	 * @return the stage shown by the overlay, or -1 if there is no overlay
+	 */
+	public int getStageNodeIndex()
+	{
+		OverlaySnapshot overlaySnapshot = plugin.getOverlaySnapshot();
+		return overlaySnapshot == null ? -1 : overlaySnapshot.getStageNodeIndex();
+	}
+
+	public static String deliveryDialog(String printedRecipientName, String orderName)
+	{
+		return printedRecipientName + " wants some " + orderName + ".<br>Take this box to them quickly please.";
+	}
+
+	public static StagePlan getStagePlan(String orderName)
+	{
+		return StagePlan.compile(GnomeRestaurantPlugin.itemOrders.get(orderName));
+	}
+
+	/**
+	 * Build a 28 slot inventory for a player who has just reached a stage: the item produced by the
+	 * previous stage, everything needed for this and the later stages, and some unrelated items
+	 */
+	public static ItemContainer inventoryForStage(StagePlan stagePlan, int stageNodeIndex, Item... extraItems)
+	{
+		List<Item> slots = new ArrayList<>();
+		StageNode currentStageNode = stagePlan.getStageNode(stageNodeIndex);
+
+		addItems(slots, currentStageNode.getCurrentItems());
+
+		for (int i = stageNodeIndex + 1; i < stagePlan.size(); i++)
+		{
+			addItems(slots, stagePlan.getStageNode(i).getOtherRequiredItems());
+		}
+
+		slots.addAll(Arrays.asList(extraItems));
+		slots.add(new Item(ItemID.COINS_995, 12345));
+		slots.add(new Item(ItemID.LAW_RUNE, 20));
+
+		while (slots.size() < INVENTORY_SIZE)
+		{
+			slots.add(new Item(-1, 0));
+		}
+
+		return FakeClient.createItemContainer(slots.subList(0, INVENTORY_SIZE).toArray(new Item[0]));
+	}
+
+	private static void addItems(List<Item> slots, List<CookingItem> cookingItems)
+	{
+		for (CookingItem cookingItem : cookingItems)
+		{
+			for (int i = 0; i < cookingItem.getCount(); i++)
+			{
+				slots.add(new Item(cookingItem.getItemId(), 1));
+			}
+		}
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.NPC;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+
+/**
+ * Reads a log written by SessionRecorder into events that are ready to be posted, so that replaying
+ * does not include decoding or building stand-in objects
+ */
+public class SessionLog
+{
+	public static class Event
+	{
+		public final int type;
+
+		// Dialog text
+
+		public String text;
+
+		// Item container contents
+
+		public InventoryID inventoryID;
+		public ItemContainer itemContainer;
+		public ItemContainerChanged itemContainerChanged;
+
+		// Varbit value
+
+		public int varbitId, value;
+
+		// NPC spawn or despawn
+
+		public NPC npc;
+		public NpcSpawned npcSpawned;
+		public NpcDespawned npcDespawned;
+
+		Event(int type)
+		{
+			this.type = type;
+		}
+	}
+
+	public static List<Event> read(File file) throws IOException
+	{
+		List<Event> events = new ArrayList<>();
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			if (in.readInt() != SessionRecorder.MAGIC)
+			{
+				throw new IOException(file + " is not a session log");
+			}
+
+			int version = in.readUnsignedByte();
+
+			if (version != SessionRecorder.VERSION)
+			{
+				throw new IOException("Unsupported session log version " + version);
+			}
+
+			int type;
+
+			while ((type = in.read()) != -1)
+			{
+				events.add(readEvent(in, type));
+			}
+		}
+
+		return events;
+	}
+
+	private static Event readEvent(DataInputStream in, int type) throws IOException
+	{
+		Event event = new Event(type);
+
+		switch (type)
+		{
+			case SessionRecorder.GAME_TICK:
+				break;
+			case SessionRecorder.DIALOG:
+				event.text = in.readUTF();
+				break;
+			case SessionRecorder.ITEM_CONTAINER:
+				int containerId = readVarInt(in);
+				Item[] items = new Item[readVarInt(in)];
+
+				for (int i = 0; i < items.length; i++)
+				{
+					items[i] = new Item(readVarInt(in) - 1, readVarInt(in));
+				}
+
+				event.inventoryID = getInventoryID(containerId);
+				event.itemContainer = FakeClient.createItemContainer(items);
+				event.itemContainerChanged = new ItemContainerChanged(containerId, event.itemContainer);
+				break;
+			case SessionRecorder.VARBIT:
+				event.varbitId = readVarInt(in);
+				event.value = readVarInt(in);
+				break;
+			case SessionRecorder.NPC_SPAWNED:
+			case SessionRecorder.NPC_DESPAWNED:
+				int index = readVarInt(in);
+				int id = readVarInt(in);
+				String name = in.readUTF();
+
+				event.npc = FakeClient.createNpc(index, id, name.isEmpty() ? null : name);
+				event.npcSpawned = new NpcSpawned(event.npc);
+				event.npcDespawned = new NpcDespawned(event.npc);
+				break;
+			default:
+				throw new IOException("Unknown record type " + type);
+		}
+
+		return event;
+	}
+
+	private static InventoryID getInventoryID(int containerId) throws IOException
+	{
+		for (InventoryID inventoryID : InventoryID.values())
+		{
+			if (inventoryID.getId() == containerId)
+			{
+				return inventoryID;
+			}
+		}
+		throw new IOException("Unknown item container " + containerId);
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException
+	{
+		int value = 0;
+
+		for (int shift = 0; shift < Integer.SIZE; shift += 7)
+		{
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new EOFException("Malformed variable-length integer");
+	}
+}
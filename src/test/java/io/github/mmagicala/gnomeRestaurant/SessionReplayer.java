@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.api.widgets.WidgetID;
+import net.runelite.client.eventbus.EventBus;
+
+/**
+ * Replays a session log against a headless plugin as fast as possible, reporting how long each type of event
+ * took, and checks that every run goes through the same stages
+ *
+ * Usage: SessionReplayer <session log> [runs]
+ */
+public class SessionReplayer
+{
+	private static final int DEFAULT_RUNS = 3;
+
+	private static final String[] EVENT_NAMES = {
+		"GameTick", "Dialog", "ItemContainerChanged", "VarbitChanged", "NpcSpawned", "NpcDespawned"
+	};
+
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length < 1)
+		{
+			System.err.println("Usage: SessionReplayer <session log> [runs]");
+			System.exit(1);
+		}
+
+		List<SessionLog.Event> events = SessionLog.read(new File(args[0]));
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+		List<Integer> expectedStages = null;
+
+		System.out.println("Replaying " + events.size() + " events from " + args[0]);
+
+		for (int run = 1; run <= runs; run++)
+		{
+			SessionReplayer replayer = new SessionReplayer(events);
+			replayer.replay();
+			replayer.report(run);
+
+			if (expectedStages == null)
+			{
+				expectedStages = replayer.stages;
+			}
+			else if (!expectedStages.equals(replayer.stages))
+			{
+				throw new AssertionError("Run " + run + " went through stages " + replayer.stages
+					+ " but run 1 went through " + expectedStages);
+			}
+		}
+	}
+
+	private static final GameTick GAME_TICK = new GameTick();
+	private static final VarbitChanged VARBIT_CHANGED = new VarbitChanged();
+	private static final WidgetLoaded DIALOG_LOADED = new WidgetLoaded();
+
+	static
+	{
+		DIALOG_LOADED.setGroupId(WidgetID.DIALOG_NPC_GROUP_ID);
+	}
+
+	private final List<SessionLog.Event> events;
+	private final PluginHarness harness;
+	private final long[][] latencies = new long[EVENT_NAMES.length][];
+	private final int[] counts = new int[EVENT_NAMES.length];
+
+	// Stages the overlay showed, in the order it showed them
+
+	private final List<Integer> stages = new ArrayList<>();
+
+	private long elapsedNanos;
+
+	private SessionReplayer(List<SessionLog.Event> events) throws Exception
+	{
+		this.events = events;
+		this.harness = new PluginHarness(false);
+
+		for (SessionLog.Event event : events)
+		{
+			counts[event.type]++;
+		}
+
+		for (int i = 0; i < latencies.length; i++)
+		{
+			latencies[i] = new long[counts[i]];
+			counts[i] = 0;
+		}
+	}
+
+	private void replay()
+	{
+		EventBus eventBus = harness.getEventBus();
+		FakeClient fakeClient = harness.getFakeClient();
+		boolean dialogOpen = false;
+		int lastStage = harness.getStageNodeIndex();
+
+		long replayStart = System.nanoTime();
+
+		for (SessionLog.Event event : events)
+		{
+			long start;
+
+			// Update the client first, so that only the dispatch to the plugin is timed
+
+			switch (event.type)
+			{
+				case SessionRecorder.GAME_TICK:
+					fakeClient.setTickCount(fakeClient.getTickCount() + 1);
+					start = System.nanoTime();
+					eventBus.post(GAME_TICK);
+					break;
+				case SessionRecorder.DIALOG:
+					fakeClient.setDialog(PluginHarness.GIANNE_JNR_NAME, event.text);
+					dialogOpen = true;
+					start = System.nanoTime();
+					eventBus.post(DIALOG_LOADED);
+					break;
+				case SessionRecorder.ITEM_CONTAINER:
+					fakeClient.setItemContainer(event.inventoryID, event.itemContainer);
+					start = System.nanoTime();
+					eventBus.post(event.itemContainerChanged);
+					break;
+				case SessionRecorder.VARBIT:
+					fakeClient.setVarbit(event.varbitId, event.value);
+					start = System.nanoTime();
+					eventBus.post(VARBIT_CHANGED);
+					break;
+				case SessionRecorder.NPC_SPAWNED:
+					fakeClient.setCachedNpc(event.npc.getIndex(), event.npc);
+					start = System.nanoTime();
+					eventBus.post(event.npcSpawned);
+					break;
+				case SessionRecorder.NPC_DESPAWNED:
+					fakeClient.setCachedNpc(event.npc.getIndex(), null);
+					start = System.nanoTime();
+					eventBus.post(event.npcDespawned);
+					break;
+				default:
+					throw new IllegalStateException("Unknown event type " + event.type);
+			}
+
+			latencies[event.type][counts[event.type]++] = System.nanoTime() - start;
+
+			// Dialogs are only recorded when the tick that reads them is, so close them straight after it,
+			// letting the same dialog be read again if it is recorded again
+
+			if (event.type == SessionRecorder.GAME_TICK && dialogOpen)
+			{
+				fakeClient.setDialog(null, null);
+				dialogOpen = false;
+			}
+
+			int stage = harness.getStageNodeIndex();
+
+			if (stage != lastStage)
+			{
+				stages.add(stage);
+				lastStage = stage;
+			}
+		}
+
+		elapsedNanos = System.nanoTime() - replayStart;
+	}
+
+	private void report(int run)
+	{
+		System.out.printf("Run %d: %,d events in %.2f ms (%,.0f events/s), stages %s%n", run, events.size(),
+			elapsedNanos / 1e6, events.size() * 1e9 / Math.max(elapsedNanos, 1), stages);
+
+		for (int i = 0; i < latencies.length; i++)
+		{
+			long[] samples = latencies[i];
+
+			if (samples.length == 0)
+			{
+				continue;
+			}
+
+			Arrays.sort(samples);
+
+			long total = 0;
+
+			for (long sample : samples)
+			{
+				total += sample;
+			}
+
+			System.out.printf("  %-22s %,8d calls  mean %,8d ns  p50 %,8d ns  p99 %,8d ns  max %,8d ns%n",
+				EVENT_NAMES[i], samples.length, total / samples.length, percentile(samples, 0.50),
+				percentile(samples, 0.99), samples[samples.length - 1]);
+		}
+	}
+
+	private static long percentile(long[] sortedSamples, double percentile)
+	{
+		int index = (int) Math.ceil(percentile * sortedSamples.length) - 1;
+		return sortedSamples[Math.max(index, 0)];
+	}
+}
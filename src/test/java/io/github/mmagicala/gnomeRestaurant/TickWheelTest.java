@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2020, MMagicala <https://github.com/MMagicala>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.github.mmagicala.gnomeRestaurant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Timeouts have to expire on their deadline tick whichever level of the wheel they start in, including the
+ * delays right around a level boundary and timeouts scheduled or cancelled while others are expiring
+ */
+public class TickWheelTest
+{
+	@Test
+	public void expiresOnDeadlineAroundEveryLevelBoundary()
+	{
+		int[] startTicks = {0, 1, 62, 63, 64, 65, 4095, 4096, 4097, 262143};
+
+		for (int startTick : startTicks)
+		{
+			TickWheel wheel = new TickWheel();
+			advance(wheel, startTick);
+
+			int[] delays = new int[9];
+			int[] expiryTicks = new int[delays.length];
+			TickTimeout[] timeouts = new TickTimeout[delays.length];
+
+			for (int level = 1; level <= 3; level++)
+			{
+				int levelSpan = 1 << 6 * level;
+
+				for (int j = 0; j < 3; j++)
+				{
+					int i = (level - 1) * 3 + j;
+					delays[i] = levelSpan - 1 + j;
+					timeouts[i] = recordExpiry(wheel, expiryTicks, i);
+					wheel.schedule(timeouts[i], delays[i]);
+				}
+			}
+
+			advance(wheel, delays[delays.length - 1] + 1);
+
+			for (int i = 0; i < delays.length; i++)
+			{
+				String message = "delay " + delays[i] + " from tick " + startTick;
+				assertEquals(message, startTick + delays[i], expiryTicks[i]);
+				assertFalse(message, timeouts[i].isScheduled());
+			}
+		}
+	}
+
+	@Test
+	public void expiresAtMaxDelay()
+	{
+		TickWheel wheel = new TickWheel();
+		advance(wheel, 5);
+
+		int[] expiryTicks = new int[1];
+		wheel.schedule(recordExpiry(wheel, expiryTicks, 0), TickWheel.MAX_DELAY);
+		advance(wheel, TickWheel.MAX_DELAY);
+
+		assertEquals(5 + TickWheel.MAX_DELAY, expiryTicks[0]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsDelaysPastMaxDelay()
+	{
+		new TickWheel().schedule(new TickTimeout(() -> {}), TickWheel.MAX_DELAY + 1);
+	}
+
+	@Test
+	public void expiresDelaysBelowOneOnTheNextTick()
+	{
+		TickWheel wheel = new TickWheel();
+		int[] expiryTicks = new int[2];
+		wheel.schedule(recordExpiry(wheel, expiryTicks, 0), 0);
+		wheel.schedule(recordExpiry(wheel, expiryTicks, 1), -10);
+		advance(wheel, 1);
+
+		assertEquals(1, expiryTicks[0]);
+		assertEquals(1, expiryTicks[1]);
+	}
+
+	@Test
+	public void reschedulingMovesTheTimeout()
+	{
+		TickWheel wheel = new TickWheel();
+		int[] expiryTicks = new int[1];
+		TickTimeout timeout = recordExpiry(wheel, expiryTicks, 0);
+		wheel.schedule(timeout, 100);
+		wheel.schedule(timeout, 10);
+		advance(wheel, 200);
+
+		assertEquals(10, expiryTicks[0]);
+	}
+
+	@Test
+	public void cancelledTimeoutsNeverExpire()
+	{
+		TickWheel wheel = new TickWheel();
+		int[] expiryTicks = new int[1];
+		TickTimeout timeout = recordExpiry(wheel, expiryTicks, 0);
+		wheel.schedule(timeout, 5000);
+		advance(wheel, 100);
+		wheel.cancel(timeout);
+		wheel.cancel(timeout);
+		advance(wheel, 5000);
+
+		assertFalse(timeout.isScheduled());
+		assertEquals(0, expiryTicks[0]);
+	}
+
+	@Test
+	public void rescheduleWhileExpiring()
+	{
+		TickWheel wheel = new TickWheel();
+		int[] counts = new int[2];
+		TickTimeout[] timeouts = new TickTimeout[2];
+
+		// One timeout repeats every tick, the other every 64 ticks so it crosses into level 1 each time
+
+		timeouts[0] = new TickTimeout(() ->
+		{
+			counts[0]++;
+			wheel.schedule(timeouts[0], 1);
+		});
+		timeouts[1] = new TickTimeout(() ->
+		{
+			counts[1]++;
+			wheel.schedule(timeouts[1], 64);
+		});
+		wheel.schedule(timeouts[0], 1);
+		wheel.schedule(timeouts[1], 64);
+		advance(wheel, 64 * 100);
+
+		assertEquals(64 * 100, counts[0]);
+		assertEquals(100, counts[1]);
+		assertTrue(timeouts[0].isScheduled());
+		assertEquals(64 * 100 + 1, timeouts[0].getDeadline());
+		assertEquals(64 * 101, timeouts[1].getDeadline());
+	}
+
+	@Test
+	public void cancelWhileExpiring()
+	{
+		TickWheel wheel = new TickWheel();
+		int[] expiryTicks = new int[2];
+		TickTimeout cancelled = recordExpiry(wheel, expiryTicks, 1);
+		TickTimeout canceller = new TickTimeout(() ->
+		{
+			expiryTicks[0] = wheel.getCurrentTick();
+			wheel.cancel(cancelled);
+		});
+
+		// Both are due on the same tick and the first one cancels the second before it runs
+
+		wheel.schedule(canceller, 70);
+		wheel.schedule(cancelled, 70);
+		advance(wheel, 100);
+
+		assertEquals(70, expiryTicks[0]);
+		assertEquals(0, expiryTicks[1]);
+		assertFalse(cancelled.isScheduled());
+	}
+
+	private static TickTimeout recordExpiry(TickWheel wheel, int[] expiryTicks, int i)
+	{
+		return new TickTimeout(() ->
+		{
+			assertEquals("expired twice", 0, expiryTicks[i]);
+			expiryTicks[i] = wheel.getCurrentTick();
+		});
+	}
+
+	private static void advance(TickWheel wheel, int ticks)
+	{
+		for (int i = 0; i < ticks; i++)
+		{
+			wheel.advance();
+		}
+	}
+}